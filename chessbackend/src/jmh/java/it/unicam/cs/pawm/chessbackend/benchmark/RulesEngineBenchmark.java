@@ -0,0 +1,115 @@
+package it.unicam.cs.pawm.chessbackend.benchmark;
+
+import it.unicam.cs.pawm.chessbackend.model.game.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks of the rules engine operations used to validate a move, measured on a fixed
+ * corpus of positions taken from the opening, the middlegame and the endgame.
+ *
+ * <ul>
+ *     <li><code>evaluate</code>: evaluates and takes back the first legal move of the color to move.</li>
+ *     <li><code>hasAnyLegalMove</code>: searches any legal move of the color to move.</li>
+ *     <li><code>getCheckingPieces</code>: finds the pieces checking the king of the color to move.</li>
+ *     <li><code>getPiecesOfColor</code>: lists the pieces of the color to move.</li>
+ *     <li><code>computePossibleTargets</code>, <code>isPinned</code>, <code>getSquareFor</code>: run once
+ *     for each piece of the color to move, so their scores depend on the number of pieces.</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesEngineBenchmark {
+    private static final String OPENING = "r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3";
+    private static final String MIDDLEGAME = "r2q1rk1/pp2bppp/2n1bn2/3p4/3P4/2NBBN2/PP3PPP/R2Q1RK1 w - - 0 10";
+    private static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    @Param({"opening", "middlegame", "endgame"})
+    private String position;
+
+    private Chessboard chessboard;
+    private Color color;
+    private Evaluator evaluator;
+    private TargetsCalculator calculator;
+    private Piece[] pieces;
+    private Piece king;
+    private Move move;
+
+    @Setup
+    public void setUp(){
+        chessboard = new Chessboard();
+        color = Fen.load(fenOf(position), chessboard);
+        evaluator = new Evaluator(chessboard);
+        calculator = evaluator.getCalculator();
+
+        Position bitboards = chessboard.getPosition();
+        pieces = new Piece[bitboards.getPieceCount(color)];
+        for (int i = 0; i < pieces.length; i++) {
+            pieces[i] = bitboards.getPiece(color, i);
+            if (pieces[i].getPieceType().equals(PieceType.KING))
+                king = pieces[i];
+        }
+
+        MoveBuffer moves = new MoveBuffer();
+        calculator.generateLegalMoves(color, moves);
+        move = new Move(
+            chessboard.getSquareAt(PackedMove.getOrigin(moves.get(0))),
+            chessboard.getSquareAt(PackedMove.getTarget(moves.get(0)))
+        );
+    }
+
+    private static String fenOf(String position){
+        return switch (position){
+            case "opening" -> OPENING;
+            case "middlegame" -> MIDDLEGAME;
+            case "endgame" -> ENDGAME;
+            default -> throw new IllegalArgumentException("Unknown position: " + position);
+        };
+    }
+
+    @Benchmark
+    public MoveEffect evaluate(){
+        MoveEffect effect = evaluator.evaluate(move);
+        chessboard.unmakeMove();
+        return effect;
+    }
+
+    @Benchmark
+    public void computePossibleTargets(Blackhole blackhole){
+        for (Piece piece : pieces)
+            blackhole.consume(calculator.computePossibleTargets(piece));
+    }
+
+    @Benchmark
+    public boolean hasAnyLegalMove(){
+        return calculator.hasAnyLegalMove(color);
+    }
+
+    @Benchmark
+    public Object getCheckingPieces(){
+        return calculator.getCheckingPieces(king);
+    }
+
+    @Benchmark
+    public void isPinned(Blackhole blackhole){
+        for (Piece piece : pieces)
+            blackhole.consume(calculator.isPinned(piece));
+    }
+
+    @Benchmark
+    public void getSquareFor(Blackhole blackhole){
+        for (Piece piece : pieces)
+            blackhole.consume(chessboard.getSquareFor(piece));
+    }
+
+    @Benchmark
+    public Object getPiecesOfColor(){
+        return chessboard.getPiecesOfColor(color);
+    }
+}
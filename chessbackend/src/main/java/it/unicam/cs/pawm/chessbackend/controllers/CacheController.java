@@ -0,0 +1,25 @@
+package it.unicam.cs.pawm.chessbackend.controllers;
+
+import it.unicam.cs.pawm.chessbackend.service.CacheStats;
+import it.unicam.cs.pawm.chessbackend.service.LegalMovesCache;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Exposes the counters of the caches shared by the matches, to size them.
+ */
+@RestController
+@CrossOrigin
+public class CacheController {
+    private final LegalMovesCache legalMoves;
+
+    public CacheController(LegalMovesCache legalMoves) {
+        this.legalMoves = legalMoves;
+    }
+
+    @GetMapping(path = "/cache/legal-moves")
+    public CacheStats getLegalMovesStats(){
+        return legalMoves.getStats();
+    }
+}
@@ -1,42 +1,370 @@
 package it.unicam.cs.pawm.chessbackend.controllers;
 
 import it.unicam.cs.pawm.chessbackend.model.game.Chessboard;
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
 import it.unicam.cs.pawm.chessbackend.model.game.Move;
-import it.unicam.cs.pawm.chessbackend.model.game.Square;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEffect;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEvaluator;
 import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Player;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Premove;
+import it.unicam.cs.pawm.chessbackend.model.game.match.TimeControl;
 import it.unicam.cs.pawm.chessbackend.model.game.match.WaitingRoom;
-import it.unicam.cs.pawm.chessbackend.model.game.matchbuilder.MatchBuilder;
+import it.unicam.cs.pawm.chessbackend.service.BinaryFormat;
+import it.unicam.cs.pawm.chessbackend.service.BoardPayload;
+import it.unicam.cs.pawm.chessbackend.service.BoardPayloadCache;
+import it.unicam.cs.pawm.chessbackend.service.HistoryDelta;
+import it.unicam.cs.pawm.chessbackend.service.LegalMoves;
+import it.unicam.cs.pawm.chessbackend.service.LegalMovesCache;
+import it.unicam.cs.pawm.chessbackend.service.MatchEventBroadcaster;
+import it.unicam.cs.pawm.chessbackend.service.MatchRegistry;
+import it.unicam.cs.pawm.chessbackend.service.MatchUpdate;
+import it.unicam.cs.pawm.chessbackend.service.MoveSpeculator;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Exposes the matches of the {@link MatchRegistry}. The routes without an id refer to the default
+ * match, created at startup with the players of the waiting room.
+ *
+ * The requests that change a match are submitted to its mailbox, so they are applied in order and
+ * without blocking the request threads, while the board and the history are read from the last
+ * snapshot published by the match. The applied moves and the flag falls are pushed to the clients
+ * subscribed to the events of the match. The moves are validated with the legal moves shared by the
+ * matches in the {@link LegalMovesCache}, and their effects are taken from the effects precomputed by
+ * the {@link MoveSpeculator} while the player thinks.
+ */
 @RestController
-@CrossOrigin
+@CrossOrigin(exposedHeaders = MatchController.PLY_HEADER)
 public class MatchController {
-    private final Match match;
+    /**
+     * The header of the boards carrying the ply of the match, so that a client subscribed to the events
+     * of the match knows which updates are already on the board.
+     */
+    public static final String PLY_HEADER = "X-Ply";
+    private static final MediaType BINARY = MediaType.parseMediaType(BinaryFormat.MEDIA_TYPE_VALUE);
+
+    private final MatchRegistry registry;
+    private final MatchEventBroadcaster broadcaster;
+    private final BoardPayloadCache payloads;
+    private final LegalMovesCache legalMoves;
+    private final MoveSpeculator speculator;
+    private final int defaultMatchId;
+
+    public MatchController(MatchRegistry registry, MatchEventBroadcaster broadcaster, BoardPayloadCache payloads,
+                           LegalMovesCache legalMoves, MoveSpeculator speculator, WaitingRoom room) {
+        this.registry = registry;
+        this.broadcaster = broadcaster;
+        this.payloads = payloads;
+        this.legalMoves = legalMoves;
+        this.speculator = speculator;
+        this.defaultMatchId = start(registry.create(room));
+    }
 
-    public MatchController(MatchBuilder builder, WaitingRoom room) {
-        this.match = builder.createMatch(room);
+    private int start(Match match){
+        int id = match.getId();
+        match.getClock().onFlagFall(player -> registry.submit(id, MatchUpdate::ofFlagFall)
+            .ifPresent(update -> update.thenAccept(u -> broadcaster.publish(id, u))));
         match.start();
+        submit(id, m -> {
+            speculator.speculate(m);
+            return null;
+        });
+        return id;
     }
 
     @GetMapping(value = "/match")
-    public Square[][] getCurrentBoard(){
-        return match.getMoveEvaluator().getCalculator().getChessboard().getChessboard();
+    public ResponseEntity<byte[]> getCurrentBoard(
+        @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept){
+        return getBoard(defaultMatchId, ifNoneMatch, accept);
     }
 
     @GetMapping(path = "/match/moves")
-    public String getMoveEffect(@RequestParam(name = "ox") int originX, @RequestParam(name = "oy") int originY,
-                                        @RequestParam(name = "tx") int targetX, @RequestParam(name = "ty") int targetY){
-        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
-        Move moveToMake = new Move(
-            board.getSquareAt(originX, originY),
-            board.getSquareAt(targetX, targetY)
-        );
-        match.onMove(moveToMake);
-        return "{\"type\" : \"" + match.getLastMoveEffect().name() + "\"}";
+    public CompletableFuture<ResponseEntity<byte[]>> getMoveEffect(@RequestParam(name = "ox") int originX, @RequestParam(name = "oy") int originY,
+                                        @RequestParam(name = "tx") int targetX, @RequestParam(name = "ty") int targetY,
+                                        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept){
+        return getMoveEffect(defaultMatchId, originX, originY, targetX, targetY, accept);
+    }
+
+    @GetMapping(path = "/match/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(name = "format", defaultValue = "json") String format){
+        return subscribe(defaultMatchId, format);
+    }
+
+    @GetMapping(path = "/match/history")
+    public HistoryDelta getHistory(@RequestParam(name = "since", defaultValue = "0") int since){
+        return getHistory(defaultMatchId, since);
+    }
+
+    @GetMapping(path = "/match/targets")
+    public CompletableFuture<List<String>> getTargets(@RequestParam(name = "x") int row, @RequestParam(name = "y") int column){
+        return getTargets(defaultMatchId, row, column);
+    }
+
+    @GetMapping(path = "/match/legal-moves")
+    public CompletableFuture<LegalMoves> getLegalMoves(){
+        return getLegalMoves(defaultMatchId);
+    }
+
+    /**
+     * Creates a match between two players. The time control is given in milliseconds with the base time
+     * of each player, the increment added after every move and the delay before the clock starts at every
+     * turn; without a base time, the match has the default clock.
+     */
+    @PostMapping(path = "/match")
+    public String createMatch(@RequestParam(name = "white") String white, @RequestParam(name = "black") String black,
+                              @RequestParam(name = "base", required = false) Long baseTime,
+                              @RequestParam(name = "increment", defaultValue = "0") long increment,
+                              @RequestParam(name = "delay", defaultValue = "0") long delay){
+        WaitingRoom room = new WaitingRoom();
+        room.addPlayer(new Player(Color.WHITE, white, 600));
+        room.addPlayer(new Player(Color.BLACK, black, 600));
+        if (baseTime == null)
+            return "{\"id\" : " + start(registry.create(room)) + "}";
+
+        TimeControl timeControl;
+        try {
+            timeControl = new TimeControl(baseTime, increment, delay);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return "{\"id\" : " + start(registry.create(room, timeControl)) + "}";
+    }
+
+    /**
+     * Returns the board of a match, in JSON or in the binary format if the client explicitly accepts
+     * it. The board is read from the last snapshot of the match, without going through its mailbox,
+     * and it is serialized once per version: a JSON board is tagged with an ETag and if the client
+     * already has the current version, the response is 304 with no body. A binary board contains the
+     * clocks, so it is never cached. Every board carries the ply of the match in the
+     * {@value #PLY_HEADER} header.
+     */
+    @GetMapping(path = "/match/{id}")
+    public ResponseEntity<byte[]> getBoard(@PathVariable(name = "id") int id,
+        @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept){
+        Match match = find(id);
+        BoardPayload payload = payloads.getOrSerialize(match);
+
+        if (acceptsBinary(accept))
+            return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .header(PLY_HEADER, String.valueOf(payload.getPly()))
+                .contentType(BINARY)
+                .body(BinaryFormat.encodeBoard(
+                    payload.getSquares(),
+                    match.getClock().getRemainingTime(match.getWhitePlayer()),
+                    match.getClock().getRemainingTime(match.getBlackPlayer())
+                ));
+        return toResponse(payload, ifNoneMatch);
+    }
+
+    private static ResponseEntity<byte[]> toResponse(BoardPayload payload, String ifNoneMatch){
+        if (payload.matches(ifNoneMatch))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(payload.getEtag())
+                .header(PLY_HEADER, String.valueOf(payload.getPly()))
+                .build();
+        return ResponseEntity.ok()
+            .eTag(payload.getEtag())
+            .header(PLY_HEADER, String.valueOf(payload.getPly()))
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(payload.getJson());
+    }
+
+    /**
+     * Tells if the client explicitly accepts the binary format: the clients accepting any media type,
+     * or sending a malformed Accept header, keep receiving JSON.
+     */
+    private static boolean acceptsBinary(String accept){
+        if (accept == null)
+            return false;
+        try {
+            return MediaType.parseMediaTypes(accept).stream().anyMatch(BINARY::equalsTypeAndSubtype);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    @GetMapping(path = "/match/{id}/moves")
+    public CompletableFuture<ResponseEntity<byte[]>> getMoveEffect(@PathVariable(name = "id") int id,
+                                @RequestParam(name = "ox") int originX, @RequestParam(name = "oy") int originY,
+                                @RequestParam(name = "tx") int targetX, @RequestParam(name = "ty") int targetY,
+                                @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept){
+        checkOnBoard(originX, originY);
+        checkOnBoard(targetX, targetY);
+        boolean binary = acceptsBinary(accept);
+        return submit(id, match -> {
+            Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+            Move moveToMake = new Move(
+                board.getSquareAt(originX, originY),
+                board.getSquareAt(targetX, targetY)
+            );
+            int ply = match.getHistory().size();
+            MoveEffect effect = match.onMove(moveToMake, evaluatorFor(match));
+            publishSince(id, match, ply);
+            speculator.speculate(match);
+
+            if (binary)
+                return ResponseEntity.ok()
+                    .contentType(BINARY)
+                    .body(BinaryFormat.encodeMove(moveToMake.getOrigin(), moveToMake.getTarget(), effect));
+            return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(("{\"type\" : \"" + effect.name() + "\"}").getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    /**
+     * Queues a premove for a player waiting for the move of the opponent. If the turn of the player
+     * has already started, the premove is applied as a move. A premove that cannot be queued, because
+     * the match ended or the queue of the player is full, is rejected with 409, while a premove off the
+     * chessboard is rejected with 400.
+     */
+    @PostMapping(path = "/match/{id}/premoves")
+    public CompletableFuture<String> addPremove(@PathVariable(name = "id") int id, @RequestParam(name = "color") Color color,
+                                                @RequestParam(name = "ox") int originX, @RequestParam(name = "oy") int originY,
+                                                @RequestParam(name = "tx") int targetX, @RequestParam(name = "ty") int targetY){
+        checkOnBoard(originX, originY);
+        checkOnBoard(targetX, targetY);
+        return submit(id, match -> {
+            if (match.isEnded())
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Match ended: cannot perform any more moves");
+            Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+            Premove premove = new Premove(color, board.getSquareAt(originX, originY), board.getSquareAt(targetX, targetY));
+
+            if (match.getSideToMove().equals(color)) {
+                int ply = match.getHistory().size();
+                MoveEvaluator evaluator = evaluatorFor(match);
+                MoveEffect effect = premove.toMove().map(move -> match.onMove(move, evaluator)).orElse(MoveEffect.ILLEGAL);
+                publishSince(id, match, ply);
+                speculator.speculate(match);
+                return "{\"type\" : \"" + effect.name() + "\"}";
+            }
+            try {
+                return "{\"queued\" : " + match.addPremove(premove) + "}";
+            } catch (IllegalStateException e) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Returns the evaluator of the next move of a match: the move is validated with the legal moves
+     * shared by the matches and its effect is taken from the effects precomputed for the position, if
+     * they are ready.
+     */
+    private MoveEvaluator evaluatorFor(Match match){
+        return legalMoves.evaluatorFor(match, speculator.take(match));
+    }
+
+    @DeleteMapping(path = "/match/{id}/premoves")
+    public CompletableFuture<Void> clearPremoves(@PathVariable(name = "id") int id, @RequestParam(name = "color") Color color){
+        return submit(id, match -> {
+            match.clearPremoves(color);
+            return null;
+        });
+    }
+
+    /**
+     * Publishes the moves applied to a match after the given ply: the move of a player can be
+     * followed by the premoves of the opponent, and every update reports the clocks and the ending
+     * recorded right after its move.
+     */
+    private void publishSince(int id, Match match, int ply){
+        match.getHistory().getEntriesSince(ply)
+            .forEach(entry -> broadcaster.publish(id, MatchUpdate.ofEntry(entry)));
+    }
+
+    /**
+     * Returns the squares, in algebraic notation, that the piece on the given square can reach. The
+     * legal moves are computed once per version of the board.
+     */
+    @GetMapping(path = "/match/{id}/targets")
+    public CompletableFuture<List<String>> getTargets(@PathVariable(name = "id") int id,
+                                                      @RequestParam(name = "x") int row, @RequestParam(name = "y") int column){
+        checkOnBoard(row, column);
+        return getLegalMoves(id).thenApply(moves -> moves.getTargets(row, column));
     }
 
+    /**
+     * Returns all the legal moves of the side to move, in coordinate notation. The legal moves are
+     * computed once per version of the board.
+     */
+    @GetMapping(path = "/match/{id}/legal-moves")
+    public CompletableFuture<LegalMoves> getLegalMoves(@PathVariable(name = "id") int id){
+        Match match = find(id);
+        return legalMoves.getIfCurrent(match)
+            .map(CompletableFuture::completedFuture)
+            .orElseGet(() -> submit(id, legalMoves::getOrCompute));
+    }
+
+    /**
+     * Returns the moves of a match applied after the given ply. If the client does not know a valid
+     * ply of the match, it has to resynchronize downloading the whole board. The moves are read from
+     * the last snapshot of the match.
+     */
+    @GetMapping(path = "/match/{id}/history")
+    public HistoryDelta getHistory(@PathVariable(name = "id") int id,
+                                   @RequestParam(name = "since", defaultValue = "0") int since){
+        try {
+            return HistoryDelta.since(find(id), since);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Unknown ply " + since + ": resync from the board");
+        }
+    }
+
+    /**
+     * Subscribes to the updates of a match. With the binary format, every event contains an update
+     * encoded with {@link BinaryFormat} in base64.
+     */
+    @GetMapping(path = "/match/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable(name = "id") int id,
+                                @RequestParam(name = "format", defaultValue = "json") String format){
+        if (registry.find(id).isEmpty())
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No match with id " + id);
+        return broadcaster.subscribe(id, format.equals("binary"));
+    }
+
+    @DeleteMapping(path = "/match/{id}")
+    public void removeMatch(@PathVariable(name = "id") int id){
+        if (registry.remove(id).isEmpty())
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No match with id " + id);
+        broadcaster.complete(id);
+        payloads.evict(id);
+        legalMoves.evict(id);
+        speculator.cancel(id);
+    }
+
+    /**
+     * Rejects with 400 the requests referring to a square that is not on the chessboard, before they
+     * reach the mailbox of the match.
+     */
+    private static void checkOnBoard(int row, int column){
+        if (row < 0 || row > 7 || column < 0 || column > 7)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The square is not on the chessboard");
+    }
 
+    private Match find(int id){
+        return registry.find(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No match with id " + id));
+    }
+
+    private <T> CompletableFuture<T> submit(int id, Function<Match, T> operation){
+        return registry.submit(id, operation)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "No match with id " + id));
+    }
 }
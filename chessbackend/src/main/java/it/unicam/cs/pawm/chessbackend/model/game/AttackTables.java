@@ -0,0 +1,100 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+/**
+ * This class holds the precomputed attacks of the pieces whose moves do not depend on the occupancy
+ * of the chessboard: knights, kings and pawns. It also holds, for every pair of squares, the squares
+ * lying between them.
+ *
+ * The tables are computed once for every square when the class is loaded, so that looking them up
+ * is a single array read; the targets of a piece are then obtained masking the attacks with the
+ * occupancy of the position.
+ */
+public final class AttackTables {
+    private static final long[] KNIGHT_ATTACKS = new long[64];
+    private static final long[] KING_ATTACKS = new long[64];
+    private static final long[][] PAWN_ATTACKS = new long[Color.values().length][64];
+    private static final long[][] PAWN_PUSHES = new long[Color.values().length][64];
+    private static final long[][] BETWEEN = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            long bit = Bitboards.bit(square);
+            KNIGHT_ATTACKS[square] = computeKnightAttacks(bit);
+            KING_ATTACKS[square] = computeKingAttacks(bit);
+            PAWN_ATTACKS[Color.WHITE.ordinal()][square] =
+                Direction.UPLEFT.shift(bit) | Direction.UPRIGTH.shift(bit);
+            PAWN_ATTACKS[Color.BLACK.ordinal()][square] =
+                Direction.DOWNLEFT.shift(bit) | Direction.DOWNRIGTH.shift(bit);
+            PAWN_PUSHES[Color.WHITE.ordinal()][square] = Direction.UP.shift(bit);
+            PAWN_PUSHES[Color.BLACK.ordinal()][square] = Direction.DOWN.shift(bit);
+            for (Direction direction : Direction.values()) {
+                long between = Bitboards.EMPTY;
+                long current = direction.shift(bit);
+                while (current != 0) {
+                    BETWEEN[square][Bitboards.first(current)] = between;
+                    between |= current;
+                    current = direction.shift(current);
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    private static long computeKnightAttacks(long knight){
+        long oneFile = ((knight >>> 1) & ~Bitboards.FILE_H) | ((knight << 1) & ~Bitboards.FILE_A);
+        long twoFiles = ((knight >>> 2) & ~(Bitboards.FILE_G | Bitboards.FILE_H))
+            | ((knight << 2) & ~(Bitboards.FILE_A | Bitboards.FILE_B));
+        return (oneFile << 16) | (oneFile >>> 16) | (twoFiles << 8) | (twoFiles >>> 8);
+    }
+
+    private static long computeKingAttacks(long king){
+        long attacks = Bitboards.EMPTY;
+        for (Direction direction : Direction.values())
+            attacks |= direction.shift(king);
+        return attacks;
+    }
+
+    public static long knight(int square){
+        return KNIGHT_ATTACKS[square];
+    }
+
+    public static long king(int square){
+        return KING_ATTACKS[square];
+    }
+
+    /**
+     * Returns the squares attacked by a pawn of the given color placed on the given square.
+     *
+     * @param square the square occupied by the pawn.
+     * @param color the color of the pawn.
+     * @return the squares attacked by the pawn.
+     */
+    public static long pawn(int square, Color color){
+        return PAWN_ATTACKS[color.ordinal()][square];
+    }
+
+    /**
+     * Returns the square in front of a pawn of the given color placed on the given square.
+     *
+     * @param square the square occupied by the pawn.
+     * @param color the color of the pawn.
+     * @return the square in front of the pawn, or an empty bitboard if the pawn is on the last row.
+     */
+    public static long pawnPush(int square, Color color){
+        return PAWN_PUSHES[color.ordinal()][square];
+    }
+
+    /**
+     * Returns the squares strictly between two squares lying on the same row, column or diagonal.
+     * If the two squares are not aligned, an empty bitboard is returned.
+     *
+     * @param from the first square.
+     * @param to the second square.
+     * @return the squares strictly between the two given squares.
+     */
+    public static long between(int from, int to){
+        return BETWEEN[from][to];
+    }
+}
@@ -0,0 +1,85 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+/**
+ * Utility class collecting the bitwise operations used to work with bitboards.
+ *
+ * A bitboard is a <code>long</code> in which every bit represents a square of the chessboard: the
+ * square in row r and column c is mapped to the bit r * 8 + c, so that the bottom-left square
+ * ('a', 1) is the least significant bit and the top-right square ('h', 8) is the most significant one.
+ */
+public final class Bitboards {
+    public static final long EMPTY = 0L;
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_B = FILE_A << 1;
+    public static final long FILE_G = FILE_A << 6;
+    public static final long FILE_H = FILE_A << 7;
+
+    private Bitboards() {
+    }
+
+    public static long bit(int square){
+        return 1L << square;
+    }
+
+    public static int square(int row, int column){
+        return row * 8 + column;
+    }
+
+    public static int row(int square){
+        return square >>> 3;
+    }
+
+    public static int column(int square){
+        return square & 7;
+    }
+
+    /**
+     * Returns the name of a square in algebraic notation, e.g. "e4".
+     *
+     * @param square the index of the square.
+     * @return the name of the square.
+     */
+    public static String name(int square){
+        return "" + (char) ('a' + column(square)) + (row(square) + 1);
+    }
+
+    public static boolean contains(long bitboard, int square){
+        return (bitboard & bit(square)) != 0;
+    }
+
+    /**
+     * Returns the index of the lowest square contained in the given bitboard, or 64 if the bitboard
+     * is empty.
+     *
+     * @param bitboard the bitboard.
+     * @return the index of the lowest square contained in the bitboard.
+     */
+    public static int first(long bitboard){
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    public static int count(long bitboard){
+        return Long.bitCount(bitboard);
+    }
+
+    /**
+     * Returns the squares reachable from the origin moving in the given direction, up to and
+     * including the first occupied square.
+     *
+     * @param origin the origin square.
+     * @param direction the direction to follow.
+     * @param occupied the occupied squares.
+     * @return the squares reachable from the origin in the given direction.
+     */
+    public static long ray(int origin, Direction direction, long occupied){
+        long ray = EMPTY;
+        long current = direction.shift(bit(origin));
+        while (current != 0){
+            ray |= current;
+            if ((current & occupied) != 0)
+                break;
+            current = direction.shift(current);
+        }
+        return ray;
+    }
+}
@@ -16,9 +16,17 @@ import java.util.*;
  *
  * The chessboard takes track of the pieces positions as the game progress: after each move of
  * one of the two player the chessboard configuration changes.
+ * Besides the <code>Square[][]</code> view, the chessboard keeps a bitboard {@link Position} that its
+ * squares update every time they are occupied or freed: the queries on the pieces placement are
+ * answered using the position.
  */
 public class Chessboard {
     private final Square[][] chessboard = new Square[8][8];
+    private final Position position = new Position();
+    private int[] undoMoves = new int[64];
+    private Piece[] undoCaptures = new Piece[64];
+    private boolean[] undoMovedFlags = new boolean[64];
+    private int undoDepth;
 
     public Chessboard() {
         createChessboard();
@@ -28,17 +36,42 @@ public class Chessboard {
         Color current = Color.BLACK;
         for (int i = 0; i < 8; i++){
             for (int j = 0; j < 8; j++){
-                chessboard[i][j] = new Square(i, j, current);
+                chessboard[i][j] = new Square(i, j, current, position);
                 if (j != 7)
                     current = current.swap();
             }
         }
     }
 
+    /**
+     * Returns a copy of this chessboard in its current configuration, with the same side to move. The
+     * pieces of the copy are new pieces equal to the original ones, so the copy can be changed, even
+     * by another thread, without affecting this chessboard.
+     *
+     * @return a copy of this chessboard.
+     */
+    public Chessboard copy(){
+        Chessboard copy = new Chessboard();
+        for (Color color : Color.values()) {
+            for (int i = 0; i < position.getPieceCount(color); i++) {
+                Piece piece = position.getPiece(color, i);
+                Piece clone = new Piece(piece.getId(), piece.getPieceType(), piece.getColor());
+                clone.setMoved(piece.hasMoved());
+                copy.getSquareAt(position.getPieceSquare(color, i)).put(clone);
+            }
+        }
+        copy.position.setSideToMove(position.getSideToMove());
+        return copy;
+    }
+
     public Square[][] getChessboard() {
         return chessboard;
     }
 
+    public Position getPosition() {
+        return position;
+    }
+
     public void initializeBoard(Set<Piece> firstSet, Set<Piece> secondSet){
         if (firstSet.stream().allMatch(p -> p.getColor().equals(Color.WHITE))){
             if (secondSet.stream().allMatch(p -> p.getColor().equals(Color.BLACK))){
@@ -93,21 +126,121 @@ public class Chessboard {
         return chessboard[row][column];
     }
 
+    /**
+     * Returns the square represented by the given bit index of a bitboard.
+     *
+     * @param index the index of the square.
+     * @return the square represented by the given index.
+     */
+    public Square getSquareAt(int index){
+        return chessboard[Bitboards.row(index)][Bitboards.column(index)];
+    }
+
+    /**
+     * Returns the squares contained in the given bitboard.
+     *
+     * @param bitboard the bitboard.
+     * @return the squares contained in the given bitboard.
+     */
+    public Set<Square> getSquaresIn(long bitboard){
+        Set<Square> squares = new HashSet<>();
+        while (bitboard != 0){
+            squares.add(getSquareAt(Bitboards.first(bitboard)));
+            bitboard &= bitboard - 1;
+        }
+        return squares;
+    }
+
+    Piece getPieceAt(int index){
+        return getSquareAt(index).getPiece().orElseThrow();
+    }
+
     public void evolve(Move move){
         move.perform();
+        position.swapSideToMove();
+    }
+
+    /**
+     * Performs a move encoded with {@link PackedMove}, recording on the undo stack what is needed to
+     * take it back: the captured piece (if any) and the previous <code>moved</code> flag of the moved
+     * piece, which is set by this operation. The flag is set while the piece is off the chessboard, so
+     * that the key of the position always accounts for the flag the piece had when it was placed.
+     *
+     * @param move the move to perform.
+     */
+    public void makeMove(int move){
+        Square origin = getSquareAt(PackedMove.getOrigin(move));
+        Square target = getSquareAt(PackedMove.getTarget(move));
+        Piece piece = origin.piece();
+
+        if (piece == null)
+            throw new IllegalArgumentException("No piece to move on " + origin);
+        if (undoDepth == undoMoves.length)
+            growUndoStack();
+
+        undoMoves[undoDepth] = move;
+        undoCaptures[undoDepth] = target.piece();
+        undoMovedFlags[undoDepth] = piece.hasMoved();
+        undoDepth++;
+
+        origin.free();
+        piece.setMoved(true);
+        target.put(piece);
+        position.swapSideToMove();
+    }
+
+    /**
+     * Takes back the last move performed with {@link #makeMove(int)}, restoring the captured piece and
+     * the <code>moved</code> flag of the moved piece.
+     */
+    public void unmakeMove(){
+        if (undoDepth == 0)
+            throw new IllegalStateException("No move to unmake.");
+
+        undoDepth--;
+        int move = undoMoves[undoDepth];
+        Square origin = getSquareAt(PackedMove.getOrigin(move));
+        Square target = getSquareAt(PackedMove.getTarget(move));
+        Piece piece = target.piece();
+        Piece captured = undoCaptures[undoDepth];
+
+        if (captured != null)
+            target.put(captured);
+        else
+            target.free();
+        piece.setMoved(undoMovedFlags[undoDepth]);
+        origin.put(piece);
+        position.swapSideToMove();
+        undoCaptures[undoDepth] = null;
+    }
+
+    /**
+     * Returns the number of moves that can be taken back with {@link #unmakeMove()}.
+     *
+     * @return the number of moves on the undo stack.
+     */
+    public int getUndoDepth(){
+        return undoDepth;
+    }
+
+    /**
+     * Forgets the moves on the undo stack, which can no longer be taken back. It is called once the
+     * moves are committed, so that the stack does not grow with every move of a match.
+     */
+    public void clearUndoStack(){
+        Arrays.fill(undoCaptures, 0, undoDepth, null);
+        undoDepth = 0;
+    }
+
+    private void growUndoStack(){
+        undoMoves = Arrays.copyOf(undoMoves, undoMoves.length * 2);
+        undoCaptures = Arrays.copyOf(undoCaptures, undoCaptures.length * 2);
+        undoMovedFlags = Arrays.copyOf(undoMovedFlags, undoMovedFlags.length * 2);
     }
 
     public Square getSquareFor(Piece piece){
-        Square toReturn = null;
-        for (int i = 0; i < 8; i++){
-            for (int j = 0; j < 8; j++){
-                if (chessboard[i][j].getPiece().isPresent()){
-                    if (chessboard[i][j].getPiece().get().equals(piece))
-                        toReturn = getSquareAt(i, j);
-                }
-            }
-        }
-        return toReturn;
+        int square = position.getSquareOf(piece);
+        return square < 0 ? null : getSquareAt(square);
     }
 
     public List<Square> getEmptySquaresFrom(Square origin, Direction direction){
@@ -130,28 +263,17 @@ public class Chessboard {
     public Set<Piece> getPiecesOfColor(Color color){
         Set<Piece> pieces = new HashSet<>();
 
-        for (int i = 0; i < 8; i++){
-            for (int j = 0; j < 8; j++){
-                Square current = getSquareAt(i, j);
-                if (current.getPiece().isPresent() && current.getPiece().get().getColor().equals(color))
-                    pieces.add(current.getPiece().get());
-            }
-        }
+        for (int i = 0; i < position.getPieceCount(color); i++)
+            pieces.add(position.getPiece(color, i));
         return pieces;
     }
 
     Optional<Piece> getPiece(PieceType type, Color color){
+        long candidates = position.getPieces(type, color);
 
-        for (int k = 0; k < 8; k++){
-            for (int j = 0; j < 8; j++){
-                Square current = getSquareAt(k, j);
-                if (current.getPiece().isPresent()){
-                    if (current.getPiece().get().getColor().equals(color) && current.getPiece().get().getPieceType().equals(type))
-                        return current.getPiece();
-                }
-            }
-        }
-        return Optional.empty();
+        if (candidates == 0)
+            return Optional.empty();
+        return getSquareAt(Bitboards.first(candidates)).getPiece();
     }
 
     /**
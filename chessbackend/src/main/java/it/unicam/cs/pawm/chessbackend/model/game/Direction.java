@@ -6,4 +6,24 @@ public enum Direction {
     boolean isDiagonal(){
         return this==UPLEFT || this==UPRIGTH || this==DOWNLEFT || this==DOWNRIGTH;
     }
+
+    /**
+     * Moves every square of the given bitboard by one step in this direction, dropping the squares
+     * that would leave the chessboard.
+     *
+     * @param bitboard the squares to move.
+     * @return the squares reached moving one step in this direction.
+     */
+    long shift(long bitboard){
+        return switch (this){
+            case UP -> bitboard << 8;
+            case DOWN -> bitboard >>> 8;
+            case LEFT -> (bitboard >>> 1) & ~Bitboards.FILE_H;
+            case RIGTH -> (bitboard << 1) & ~Bitboards.FILE_A;
+            case UPRIGTH -> (bitboard << 9) & ~Bitboards.FILE_A;
+            case UPLEFT -> (bitboard << 7) & ~Bitboards.FILE_H;
+            case DOWNRIGTH -> (bitboard >>> 7) & ~Bitboards.FILE_A;
+            case DOWNLEFT -> (bitboard >>> 9) & ~Bitboards.FILE_H;
+        };
+    }
 }
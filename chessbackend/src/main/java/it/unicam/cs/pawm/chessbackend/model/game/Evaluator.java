@@ -1,7 +1,5 @@
 package it.unicam.cs.pawm.chessbackend.model.game;
 
-import java.util.Set;
-
 /**
  * This class is responsible for the evaluation of chess moves during a game.
  */
@@ -18,46 +16,49 @@ public class Evaluator implements MoveEvaluator{
 
     @Override
     public MoveEffect evaluate(Move move) {
-        Piece pieceToMove = move.getPiece();
-        Set<Piece> enemies = calculator.getChessboard().getPiecesOfColor(pieceToMove.getColor().swap());
-        Set<Piece> pieces = calculator.getChessboard().getPiecesOfColor(pieceToMove.getColor());
-
-        Piece enemyKing = enemies.stream()
-            .filter(p -> p.getPieceType().equals(PieceType.KING))
-            .findFirst()
-            .orElseThrow();
-
-        Piece king = enemies.stream()
-            .filter(p -> p.getPieceType().equals(PieceType.KING))
-            .findFirst()
-            .orElseThrow();
-
-        if (calculator.computePossibleTargets(pieceToMove).contains(move.getTarget())) {
-            boolean isTargetEmptyBeforeMove = calculator.getChessboard().getSquareAt(
-                move.getTarget().getRow(),
-                move.getTarget().getColumn()
-            ).isEmpty();
-
-            calculator.getChessboard().evolve(move);
-
-            if (pieces.stream().noneMatch(calculator::canMove) && calculator.getCheckingPieces(king).isEmpty())
-                return MoveEffect.DRAW;
-
-            if (!pieceToMove.hasMoved())
-                pieceToMove.setMoved();
-
-            if (calculator.getCheckingPieces(enemyKing).contains(pieceToMove)) {
-                if (enemies.stream().noneMatch(calculator::canMove))
-                    return MoveEffect.CHECKMATE;
-                else return MoveEffect.CHECK;
-            } else if (isTargetEmptyBeforeMove) {
-                return MoveEffect.MOVE;
-            } else {
-                return MoveEffect.CAPTURE;
-            }
-        }
-        return MoveEffect.ILLEGAL;
+        if (!Bitboards.contains(calculator.targetsMask(move.getPiece()), move.getTarget().index()))
+            return MoveEffect.ILLEGAL;
+
+        boolean capture = perform(move);
+        return effectOf(move, capture);
+    }
+
+    /**
+     * Performs a move already known to be legal, without validating it.
+     *
+     * @param move the move to perform.
+     * @return true if the move captures a piece.
+     */
+    public boolean perform(Move move) {
+        boolean capture = !move.getTarget().isEmpty();
+        calculator.getChessboard().makeMove(PackedMove.encode(
+            move.getOrigin().index(),
+            move.getTarget().index(),
+            capture ? PackedMove.CAPTURE : PackedMove.NONE
+        ));
+        return capture;
     }
 
+    /**
+     * Returns the effect of a move just performed, analyzing the resulting position.
+     *
+     * @param move the move just performed.
+     * @param capture true if the move captured a piece.
+     * @return the effect of the move.
+     */
+    public MoveEffect effectOf(Move move, boolean capture) {
+        Color enemyColor = move.getPiece().getColor().swap();
+        boolean isCheck = calculator.isCheck(enemyColor);
+
+        if (!calculator.hasAnyLegalMove(enemyColor))
+            return isCheck ? MoveEffect.CHECKMATE : MoveEffect.DRAW;
 
+        if (isCheck) {
+            return MoveEffect.CHECK;
+        } else if (capture) {
+            return MoveEffect.CAPTURE;
+        } else {
+            return MoveEffect.MOVE;
+        }
+    }
 }
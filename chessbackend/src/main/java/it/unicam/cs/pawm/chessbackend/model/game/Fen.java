@@ -0,0 +1,79 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+/**
+ * Utility class to set up a chessboard from a position written in the Forsyth-Edwards Notation.
+ *
+ * Only the piece placement and the side to move are read: castling and en passant are not part of
+ * the rules implemented by this game, so the other fields are ignored. A pawn that is not on its
+ * starting row is considered as already moved, so it cannot advance by two squares.
+ */
+public final class Fen {
+    public static final String STARTING_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    private Fen() {
+    }
+
+    /**
+     * Places the pieces described by a FEN string on an empty chessboard and returns the color of
+     * the player that has to move.
+     *
+     * @param fen the position in Forsyth-Edwards Notation.
+     * @param chessboard the empty chessboard where the pieces are placed.
+     * @return the color of the player that has to move.
+     */
+    public static Color load(String fen, Chessboard chessboard){
+        if (chessboard.getPosition().getOccupied() != 0)
+            throw new IllegalArgumentException("The chessboard must be empty.");
+
+        String[] fields = fen.trim().split("\\s+");
+        String[] rows = fields[0].split("/");
+        if (rows.length != 8)
+            throw new IllegalArgumentException("Invalid FEN, expected 8 rows: " + fen);
+
+        for (int i = 0; i < 8; i++) {
+            int row = 7 - i;
+            int column = 0;
+            for (char c : rows[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    column += c - '0';
+                } else {
+                    if (column > 7)
+                        throw new IllegalArgumentException("Invalid FEN, too many squares in row: " + rows[i]);
+                    chessboard.getSquareAt(row, column++).occupyWith(toPiece(c, row));
+                }
+            }
+            if (column != 8)
+                throw new IllegalArgumentException("Invalid FEN, wrong number of squares in row: " + rows[i]);
+        }
+
+        Color sideToMove = toSideToMove(fields.length < 2 ? "w" : fields[1]);
+        chessboard.getPosition().setSideToMove(sideToMove);
+        return sideToMove;
+    }
+
+    private static Color toSideToMove(String field){
+        if (field.equals("w"))
+            return Color.WHITE;
+        if (field.equals("b"))
+            return Color.BLACK;
+        throw new IllegalArgumentException("Invalid FEN, unknown side to move: " + field);
+    }
+
+    private static Piece toPiece(char c, int row){
+        Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+        PieceType type = switch (Character.toLowerCase(c)){
+            case 'p' -> PieceType.PAWN;
+            case 'n' -> PieceType.KNIGHT;
+            case 'b' -> PieceType.BISHOP;
+            case 'r' -> PieceType.ROOK;
+            case 'q' -> PieceType.QUEEN;
+            case 'k' -> PieceType.KING;
+            default -> throw new IllegalArgumentException("Invalid FEN, unknown piece: " + c);
+        };
+        Piece piece = PieceFactory.get(type, color);
+        int pawnRow = color.equals(Color.WHITE) ? 1 : 6;
+        if (type.equals(PieceType.PAWN) && row != pawnRow)
+            piece.setMoved();
+        return piece;
+    }
+}
@@ -46,6 +46,6 @@ public class Move {
 
     @Override
     public int hashCode() {
-        return Objects.hash(origin, target, piece);
+        return 31 * (31 * origin.hashCode() + target.hashCode()) + piece.hashCode();
     }
 }
@@ -0,0 +1,47 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+/**
+ * A reusable buffer of moves encoded with {@link PackedMove}.
+ *
+ * The buffer is meant to be allocated once by the caller and cleared before every use, so that
+ * generating moves does not create any object. The default capacity holds the moves of any legal
+ * position, since no position has more than 218 legal moves.
+ */
+public class MoveBuffer {
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private final int[] moves;
+    private int size;
+
+    public MoveBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveBuffer(int capacity) {
+        this.moves = new int[capacity];
+    }
+
+    public void clear(){
+        size = 0;
+    }
+
+    public void add(int move){
+        if (size == moves.length)
+            throw new IllegalStateException("Move buffer full: capacity " + moves.length + " exceeded");
+        moves[size++] = move;
+    }
+
+    public int get(int index){
+        if (index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        return moves[index];
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+}
@@ -0,0 +1,42 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+/**
+ * Utility class to encode a move in a single <code>int</code>.
+ *
+ * The origin square takes the bits 0-5, the target square the bits 6-11 and the flags describing the
+ * move the bits from 12 on. The squares are the indexes used by the bitboards (see {@link Bitboards}).
+ */
+public final class PackedMove {
+    public static final int NONE = 0;
+    public static final int CAPTURE = 1;
+    public static final int DOUBLE_PUSH = 1 << 1;
+
+    private static final int SQUARE_MASK = 0x3F;
+
+    private PackedMove() {
+    }
+
+    public static int encode(int origin, int target, int flags){
+        return origin | (target << 6) | (flags << 12);
+    }
+
+    public static int getOrigin(int move){
+        return move & SQUARE_MASK;
+    }
+
+    public static int getTarget(int move){
+        return (move >>> 6) & SQUARE_MASK;
+    }
+
+    public static int getFlags(int move){
+        return move >>> 12;
+    }
+
+    public static boolean isCapture(int move){
+        return (getFlags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isDoublePush(int move){
+        return (getFlags(move) & DOUBLE_PUSH) != 0;
+    }
+}
@@ -0,0 +1,214 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A perft (performance test) runner: it counts the leaf nodes of the tree of the legal moves of a
+ * position up to a given depth, which is a measure of both the correctness and the speed of the
+ * move generation.
+ *
+ * The positions are given in Forsyth-Edwards Notation (see {@link Fen}); the moves are generated with
+ * {@link TargetsCalculator#generateLegalMoves(Color, MoveBuffer)} and explored with
+ * {@link Chessboard#makeMove(int)} and {@link Chessboard#unmakeMove()} on a single chessboard. In
+ * parallel mode, the moves of the root position are split among worker threads, each one exploring
+ * its moves on its own chessboard.
+ *
+ * The class can be run from the command line:
+ * <pre>
+ *     java -cp target/classes it.unicam.cs.pawm.chessbackend.model.game.Perft depth [--parallel] [fen]
+ * </pre>
+ */
+public class Perft {
+    private static final String USAGE = "Usage: Perft depth [--parallel] [fen]";
+
+    private final String fen;
+
+    public Perft(String fen) {
+        this.fen = fen;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    /**
+     * Counts the leaf nodes reached from the position at the given depth, on the current thread.
+     *
+     * @param depth the depth to reach.
+     * @return the result of the run, with the count of each root move.
+     * @throws IllegalArgumentException if the depth is negative.
+     */
+    public PerftResult run(int depth){
+        checkDepth(depth);
+        long start = System.nanoTime();
+        Chessboard chessboard = new Chessboard();
+        Color color = Fen.load(fen, chessboard);
+        Walker walker = new Walker(chessboard, depth);
+        Map<String, Long> divide = new TreeMap<>();
+        long nodes = 0;
+
+        if (depth == 0)
+            return new PerftResult(depth, 1, System.nanoTime() - start, divide);
+
+        MoveBuffer rootMoves = new MoveBuffer();
+        new TargetsCalculator(chessboard).generateLegalMoves(color, rootMoves);
+        for (int i = 0; i < rootMoves.size(); i++) {
+            long count = walker.countAfter(rootMoves.get(i), color.swap(), depth - 1);
+            divide.put(toCoordinates(rootMoves.get(i)), count);
+            nodes += count;
+        }
+        return new PerftResult(depth, nodes, System.nanoTime() - start, divide);
+    }
+
+    /**
+     * Counts the leaf nodes reached from the position at the given depth, splitting the moves of the
+     * root position among the given number of threads.
+     *
+     * @param depth the depth to reach.
+     * @param threads the number of worker threads.
+     * @return the result of the run, with the count of each root move.
+     * @throws IllegalArgumentException if the depth is negative.
+     */
+    public PerftResult runParallel(int depth, int threads){
+        checkDepth(depth);
+        if (depth == 0)
+            return run(depth);
+
+        long start = System.nanoTime();
+        Chessboard root = new Chessboard();
+        Color color = Fen.load(fen, root);
+        MoveBuffer rootMoves = new MoveBuffer();
+        new TargetsCalculator(root).generateLegalMoves(color, rootMoves);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> counts = new ArrayList<>();
+            for (int i = 0; i < rootMoves.size(); i++) {
+                int move = rootMoves.get(i);
+                counts.add(executor.submit(() -> {
+                    Chessboard chessboard = new Chessboard();
+                    Fen.load(fen, chessboard);
+                    return new Walker(chessboard, depth).countAfter(move, color.swap(), depth - 1);
+                }));
+            }
+
+            Map<String, Long> divide = new TreeMap<>();
+            long nodes = 0;
+            for (int i = 0; i < rootMoves.size(); i++) {
+                long count = counts.get(i).get();
+                divide.put(toCoordinates(rootMoves.get(i)), count);
+                nodes += count;
+            }
+            return new PerftResult(depth, nodes, System.nanoTime() - start, divide);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Perft interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Perft failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void checkDepth(int depth){
+        if (depth < 0)
+            throw new IllegalArgumentException("The depth cannot be negative: " + depth);
+    }
+
+    /**
+     * Writes a packed move in coordinate notation, e.g. "e2e4".
+     *
+     * @param move the packed move.
+     * @return the move in coordinate notation.
+     */
+    public static String toCoordinates(int move){
+        return Bitboards.name(PackedMove.getOrigin(move)) + Bitboards.name(PackedMove.getTarget(move));
+    }
+
+    /**
+     * Explores the tree of the moves on a single chessboard, with one reusable buffer per ply.
+     */
+    private static class Walker {
+        private final Chessboard chessboard;
+        private final TargetsCalculator calculator;
+        private final MoveBuffer[] buffers;
+
+        Walker(Chessboard chessboard, int depth) {
+            this.chessboard = chessboard;
+            this.calculator = new TargetsCalculator(chessboard);
+            this.buffers = new MoveBuffer[Math.max(depth, 1)];
+            for (int i = 0; i < buffers.length; i++)
+                buffers[i] = new MoveBuffer();
+        }
+
+        long countAfter(int move, Color color, int depth){
+            chessboard.makeMove(move);
+            long nodes = count(color, depth);
+            chessboard.unmakeMove();
+            return nodes;
+        }
+
+        private long count(Color color, int depth){
+            if (depth == 0)
+                return 1;
+
+            MoveBuffer moves = buffers[depth - 1];
+            int size = calculator.generateLegalMoves(color, moves);
+            if (depth == 1)
+                return size;
+
+            long nodes = 0;
+            for (int i = 0; i < size; i++) {
+                chessboard.makeMove(moves.get(i));
+                nodes += count(color.swap(), depth - 1);
+                chessboard.unmakeMove();
+            }
+            return nodes;
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println(USAGE);
+            return;
+        }
+
+        int depth;
+        try {
+            depth = Integer.parseInt(args[0]);
+            checkDepth(depth);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+        boolean parallel = false;
+        StringBuilder fen = new StringBuilder();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--parallel"))
+                parallel = true;
+            else
+                fen.append(args[i]).append(' ');
+        }
+
+        Perft perft = new Perft(fen.length() == 0 ? Fen.STARTING_POSITION : fen.toString().trim());
+        PerftResult result = parallel
+            ? perft.runParallel(depth, Runtime.getRuntime().availableProcessors())
+            : perft.run(depth);
+
+        result.getDivide().forEach((move, count) -> System.out.println(move + ": " + count));
+        System.out.println();
+        System.out.println("Depth: " + result.getDepth());
+        System.out.println("Nodes: " + result.getNodes());
+        System.out.println("Time: " + result.getElapsedNanos() / 1_000_000 + " ms");
+        System.out.println("Nodes per second: " + result.getNodesPerSecond());
+    }
+}
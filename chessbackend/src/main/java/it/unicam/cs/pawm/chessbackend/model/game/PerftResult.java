@@ -0,0 +1,50 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The result of a perft run: the number of leaf nodes reached at the requested depth, the time
+ * spent to count them and the number of nodes reached after each move of the root position.
+ */
+public class PerftResult {
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+    private final Map<String, Long> divide;
+
+    public PerftResult(int depth, long nodes, long elapsedNanos, Map<String, Long> divide) {
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+        this.divide = Collections.unmodifiableMap(divide);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Returns the number of leaf nodes reached after each move of the root position, keyed by the
+     * move written in coordinate notation (e.g. "e2e4").
+     *
+     * @return the number of leaf nodes reached after each root move.
+     */
+    public Map<String, Long> getDivide() {
+        return divide;
+    }
+
+    public long getNodesPerSecond(){
+        if (elapsedNanos == 0)
+            return 0;
+        return (long) (nodes / (elapsedNanos / 1e9));
+    }
+}
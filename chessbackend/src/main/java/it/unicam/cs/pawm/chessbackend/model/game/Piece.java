@@ -1,7 +1,5 @@
 package it.unicam.cs.pawm.chessbackend.model.game;
 
-import java.util.Objects;
-
 /**
  * This abstract class describes a generic chess piece.
  *
@@ -33,6 +31,10 @@ public class Piece {
         moved = true;
     }
 
+    void setMoved(boolean moved){
+        this.moved = moved;
+    }
+
     public int getId() {
         return id;
     }
@@ -64,6 +66,6 @@ public class Piece {
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Integer.hashCode(id);
     }
 }
@@ -2,10 +2,11 @@ package it.unicam.cs.pawm.chessbackend.model.game;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A piece factory is responsible for the creation of a set of piece used by a player during a chess match.
- * Every piece has a unique identifier and the same color.
+ * Every piece has a unique identifier, also when the pieces are created by many threads, and the same color.
  * A set of pieces contains the following types of pieces:
  *      - 8 pawns
  *      - 2 rooks
@@ -15,7 +16,7 @@ import java.util.Set;
  *      - 1 king.
  */
 public class PieceFactory {
-    private static int id = 0;
+    private static final AtomicInteger id = new AtomicInteger();
 
     /**
      * Returns a complete set of piece of given color that can be used by one player during a match.
@@ -27,17 +28,17 @@ public class PieceFactory {
         Set<Piece> pieces = new HashSet<>();
         for (int i = 1; i <= 16; i++){
             if (i <= 8)
-                pieces.add(new Piece(id++, PieceType.PAWN, color));
+                pieces.add(new Piece(id.getAndIncrement(), PieceType.PAWN, color));
             if (i > 8 && i <= 10)
-                pieces.add(new Piece(id++, PieceType.ROOK, color));
+                pieces.add(new Piece(id.getAndIncrement(), PieceType.ROOK, color));
             if (i > 10 && i <= 12)
-                pieces.add(new Piece(id++, PieceType.KNIGHT, color));
+                pieces.add(new Piece(id.getAndIncrement(), PieceType.KNIGHT, color));
             if (i > 12 && i <= 14)
-                pieces.add(new Piece(id++, PieceType.BISHOP, color));
+                pieces.add(new Piece(id.getAndIncrement(), PieceType.BISHOP, color));
             if (i == 15)
-                pieces.add(new Piece(id++, PieceType.QUEEN, color));
+                pieces.add(new Piece(id.getAndIncrement(), PieceType.QUEEN, color));
             if (i == 16)
-                pieces.add(new Piece(id++, PieceType.KING, color));
+                pieces.add(new Piece(id.getAndIncrement(), PieceType.KING, color));
         }
         return pieces;
     }
@@ -50,6 +51,6 @@ public class PieceFactory {
      * @return a new piece of a given type and color.
      */
     public static Piece get(PieceType type, Color color){
-        return new Piece(id++, type, color);
+        return new Piece(id.getAndIncrement(), type, color);
     }
 }
@@ -0,0 +1,240 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class represents the placement of the pieces on a chessboard using bitboards.
+ *
+ * The position keeps one bitboard for each piece type and color, plus the occupancy masks of the two
+ * colors (see {@link Bitboards} for the mapping between squares and bits). A position belongs to a
+ * {@link Chessboard} and is updated by its squares every time they are occupied or freed, so the
+ * bitboards always describe the same configuration of the <code>Square[][]</code> view.
+ *
+ * Together with the bitboards, the position maintains a list of the pieces of each color and an
+ * index from every piece to the square it occupies, so that locating a piece does not require a scan
+ * of the chessboard and the pieces of a color can be iterated without allocating any collection.
+ *
+ * The position also keeps its Zobrist key (see {@link Zobrist}), updated with a xor every time a piece
+ * is placed or removed or the side to move changes, so that two positions can be compared in constant
+ * time.
+ */
+public class Position {
+    private final long[][] pieces = new long[Color.values().length][PieceType.values().length];
+    private final long[] occupancy = new long[Color.values().length];
+
+    private final Piece[][] pieceLists = new Piece[Color.values().length][64];
+    private final int[][] pieceListSquares = new int[Color.values().length][64];
+    private final int[] pieceCounts = new int[Color.values().length];
+    private final int[] pieceListIndexes = new int[64];
+    private final Map<Piece, Integer> pieceSquares = new HashMap<>();
+    private Color sideToMove = Color.WHITE;
+    private long key;
+    private volatile long version;
+
+    void place(int square, Piece piece){
+        int color = piece.getColor().ordinal();
+        long bit = Bitboards.bit(square);
+        pieces[color][piece.getPieceType().ordinal()] |= bit;
+        occupancy[color] |= bit;
+
+        int index = pieceCounts[color]++;
+        pieceLists[color][index] = piece;
+        pieceListSquares[color][index] = square;
+        pieceListIndexes[square] = index;
+        pieceSquares.put(piece, square);
+        key ^= Zobrist.piece(piece, square);
+        version++;
+    }
+
+    void remove(int square, Piece piece){
+        int color = piece.getColor().ordinal();
+        long bit = ~Bitboards.bit(square);
+        pieces[color][piece.getPieceType().ordinal()] &= bit;
+        occupancy[color] &= bit;
+
+        int index = pieceListIndexes[square];
+        int last = --pieceCounts[color];
+        pieceLists[color][index] = pieceLists[color][last];
+        pieceListSquares[color][index] = pieceListSquares[color][last];
+        pieceListIndexes[pieceListSquares[color][index]] = index;
+        pieceLists[color][last] = null;
+
+        Integer indexed = pieceSquares.get(piece);
+        if (indexed != null && indexed == square)
+            pieceSquares.remove(piece);
+        key ^= Zobrist.piece(piece, square);
+        version++;
+    }
+
+    void setSideToMove(Color color){
+        key ^= Zobrist.sideToMove(sideToMove) ^ Zobrist.sideToMove(color);
+        sideToMove = color;
+        version++;
+    }
+
+    void swapSideToMove(){
+        setSideToMove(sideToMove.swap());
+    }
+
+    public Color getSideToMove(){
+        return sideToMove;
+    }
+
+    /**
+     * Returns the Zobrist key of this position: two positions with the same pieces on the same squares,
+     * the same pieces still unmoved and the same side to move have the same key. Like the bitboards,
+     * the key must be read by the thread updating the position, or after reading its version.
+     *
+     * @return the Zobrist key of this position.
+     */
+    public long getKey(){
+        return key;
+    }
+
+    /**
+     * Returns the version of this position: the version changes every time a piece is placed or
+     * removed, so it can be used to tell if something computed on the position is still valid. The
+     * version is only changed by the thread updating the position, but it can be read by any thread.
+     *
+     * @return the version of this position.
+     */
+    public long getVersion(){
+        return version;
+    }
+
+    /**
+     * Returns the index of the square occupied by the given piece, or -1 if the piece is not on the
+     * chessboard.
+     *
+     * @param piece the piece.
+     * @return the index of the square occupied by the piece, or -1 if the piece is not placed.
+     */
+    public int getSquareOf(Piece piece){
+        Integer square = pieceSquares.get(piece);
+        return square == null ? -1 : square;
+    }
+
+    /**
+     * Returns the number of pieces of a given color placed on the chessboard.
+     *
+     * @param color the color of the pieces.
+     * @return the number of pieces of the given color.
+     */
+    public int getPieceCount(Color color){
+        return pieceCounts[color.ordinal()];
+    }
+
+    /**
+     * Returns the i-th piece in the list of the pieces of a given color. Together with
+     * {@link #getPieceCount(Color)} and {@link #getPieceSquare(Color, int)} it allows to iterate the
+     * pieces of a color without allocations; the order of the list changes when pieces are removed.
+     *
+     * @param color the color of the pieces.
+     * @param index the index in the list, between 0 and the number of pieces of the color.
+     * @return the i-th piece of the given color.
+     */
+    public Piece getPiece(Color color, int index){
+        return pieceLists[color.ordinal()][index];
+    }
+
+    /**
+     * Returns the index of the square occupied by the i-th piece in the list of the pieces of a given
+     * color.
+     *
+     * @param color the color of the pieces.
+     * @param index the index in the list, between 0 and the number of pieces of the color.
+     * @return the square occupied by the i-th piece of the given color.
+     */
+    public int getPieceSquare(Color color, int index){
+        return pieceListSquares[color.ordinal()][index];
+    }
+
+    /**
+     * Returns the squares occupied by the pieces of a given type and color.
+     *
+     * @param type the type of the pieces.
+     * @param color the color of the pieces.
+     * @return the squares occupied by the pieces of a given type and color.
+     */
+    public long getPieces(PieceType type, Color color){
+        return pieces[color.ordinal()][type.ordinal()];
+    }
+
+    /**
+     * Returns the squares occupied by the pieces of a given color.
+     *
+     * @param color the color of the pieces.
+     * @return the squares occupied by the pieces of a given color.
+     */
+    public long getOccupancy(Color color){
+        return occupancy[color.ordinal()];
+    }
+
+    public long getOccupied(){
+        return occupancy[Color.WHITE.ordinal()] | occupancy[Color.BLACK.ordinal()];
+    }
+
+    public long getEmpty(){
+        return ~getOccupied();
+    }
+
+    public long getKings(){
+        return getPieces(PieceType.KING, Color.WHITE) | getPieces(PieceType.KING, Color.BLACK);
+    }
+
+    /**
+     * Returns the squares occupied by the rooks and queens of a given color.
+     *
+     * @param color the color of the pieces.
+     * @return the squares occupied by the rooks and queens of a given color.
+     */
+    public long getOrthogonalSliders(Color color){
+        return getPieces(PieceType.ROOK, color) | getPieces(PieceType.QUEEN, color);
+    }
+
+    /**
+     * Returns the squares occupied by the bishops and queens of a given color.
+     *
+     * @param color the color of the pieces.
+     * @return the squares occupied by the bishops and queens of a given color.
+     */
+    public long getDiagonalSliders(Color color){
+        return getPieces(PieceType.BISHOP, color) | getPieces(PieceType.QUEEN, color);
+    }
+
+    /**
+     * Returns the pieces of a given color attacking the given square. The attackers are found
+     * looking outward from the square with the attack pattern of every piece type, so the cost of the
+     * query does not depend on the number of pieces on the chessboard.
+     *
+     * @param square the attacked square.
+     * @param color the color of the attacking pieces.
+     * @param occupied the occupied squares that block the sliding pieces.
+     * @return the bitboard of the pieces of the given color attacking the square.
+     */
+    public long getAttackers(int square, Color color, long occupied){
+        return (AttackTables.pawn(square, color.swap()) & getPieces(PieceType.PAWN, color))
+            | (AttackTables.knight(square) & getPieces(PieceType.KNIGHT, color))
+            | (AttackTables.king(square) & getPieces(PieceType.KING, color))
+            | (SlidingAttacks.bishop(square, occupied) & getDiagonalSliders(color))
+            | (SlidingAttacks.rook(square, occupied) & getOrthogonalSliders(color));
+    }
+
+    /**
+     * Returns true if the given square is attacked by at least one piece of the given color, false
+     * otherwise.
+     *
+     * @param square the square.
+     * @param color the color of the attacking pieces.
+     * @param occupied the occupied squares that block the sliding pieces.
+     * @return true if the square is attacked by the given color, false otherwise.
+     */
+    public boolean isAttacked(int square, Color color, long occupied){
+        return (AttackTables.knight(square) & getPieces(PieceType.KNIGHT, color)) != 0
+            || (AttackTables.pawn(square, color.swap()) & getPieces(PieceType.PAWN, color)) != 0
+            || (AttackTables.king(square) & getPieces(PieceType.KING, color)) != 0
+            || (SlidingAttacks.bishop(square, occupied) & getDiagonalSliders(color)) != 0
+            || (SlidingAttacks.rook(square, occupied) & getOrthogonalSliders(color)) != 0;
+    }
+}
@@ -0,0 +1,130 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+/**
+ * This class holds the information about the safety of a king that every legal move of its side
+ * depends on: the enemy pieces checking it, the squares where a check can be blocked or captured
+ * and the pieces pinned against it, together with the line each of them is pinned along.
+ *
+ * The analysis is computed in a single pass starting from the king square, and it is valid until the
+ * placement of the pieces changes: it records the version of the {@link Position} it was computed on,
+ * so that it can be reused by all the queries made on the same position.
+ */
+public class PositionAnalysis {
+    private final Color color;
+    private final long[] pinRays = new long[64];
+    private long version = -1;
+    private int kingSquare;
+    private long checkers;
+    private long checkMask;
+    private long pinned;
+
+    public PositionAnalysis(Color color) {
+        this.color = color;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    /**
+     * Tells if this analysis describes the given position in its current state.
+     *
+     * @param position the position.
+     * @return true if the analysis is up-to-date with the position, false otherwise.
+     */
+    public boolean isValidFor(Position position){
+        return version == position.getVersion();
+    }
+
+    /**
+     * Computes the analysis of the given position for the king of the color of this analysis.
+     * If the king is not on the chessboard, no piece is checking or pinned.
+     *
+     * @param position the position to analyze.
+     */
+    public void analyze(Position position){
+        Color enemy = color.swap();
+        long king = position.getPieces(PieceType.KING, color);
+        long own = position.getOccupancy(color);
+        long occupied = position.getOccupied();
+
+        version = position.getVersion();
+        pinned = Bitboards.EMPTY;
+        if (king == 0) {
+            kingSquare = -1;
+            checkers = Bitboards.EMPTY;
+            checkMask = ~Bitboards.EMPTY;
+            return;
+        }
+
+        kingSquare = Bitboards.first(king);
+        checkers = position.getAttackers(kingSquare, enemy, occupied);
+        if (checkers == 0)
+            checkMask = ~Bitboards.EMPTY;
+        else if (Bitboards.count(checkers) == 1)
+            checkMask = checkers | AttackTables.between(kingSquare, Bitboards.first(checkers));
+        else
+            checkMask = Bitboards.EMPTY;
+
+        long enemies = position.getOccupancy(enemy);
+        long snipers = (SlidingAttacks.rook(kingSquare, enemies) & position.getOrthogonalSliders(enemy))
+            | (SlidingAttacks.bishop(kingSquare, enemies) & position.getDiagonalSliders(enemy));
+        while (snipers != 0) {
+            int sniper = Bitboards.first(snipers);
+            long line = AttackTables.between(kingSquare, sniper);
+            long blockers = line & occupied;
+            if (Bitboards.count(blockers) == 1 && (blockers & own) != 0) {
+                pinned |= blockers;
+                pinRays[Bitboards.first(blockers)] = line | Bitboards.bit(sniper);
+            }
+            snipers &= snipers - 1;
+        }
+    }
+
+    /**
+     * Returns the square of the king, or -1 if the king is not on the chessboard.
+     *
+     * @return the square of the king.
+     */
+    public int getKingSquare() {
+        return kingSquare;
+    }
+
+    public long getCheckers() {
+        return checkers;
+    }
+
+    public boolean isCheck(){
+        return checkers != 0;
+    }
+
+    /**
+     * Returns the squares where a piece other than the king can move to solve a check: the checking
+     * piece and the squares between it and the king. If the king is not checked every square is
+     * allowed, while if it is checked by two pieces no square is.
+     *
+     * @return the squares where a piece other than the king can move.
+     */
+    public long getCheckMask() {
+        return checkMask;
+    }
+
+    public long getPinned() {
+        return pinned;
+    }
+
+    public boolean isPinned(int square){
+        return Bitboards.contains(pinned, square);
+    }
+
+    /**
+     * Returns the line a pinned piece can move along without exposing its king: the squares between
+     * the king and the pinning piece, including the latter.
+     *
+     * @param square the square of the pinned piece.
+     * @return the line the piece is pinned along, or every square if the piece is not pinned.
+     */
+    public long getPinRay(int square){
+        return isPinned(square) ? pinRays[square] : ~Bitboards.EMPTY;
+    }
+}
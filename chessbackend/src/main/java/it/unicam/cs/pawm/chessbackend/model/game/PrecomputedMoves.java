@@ -0,0 +1,80 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+
+/**
+ * The effects of all the legal moves of the side to move in a given position, computed in advance so
+ * that the move eventually made in that position is validated with a lookup.
+ *
+ * The effects are computed on a copy of the chessboard (see {@link Chessboard#copy()}), so they can be
+ * computed by a thread other than the one updating the chessboard, and they are valid for the
+ * positions with the same Zobrist key of the copy.
+ */
+public class PrecomputedMoves {
+    private final long key;
+    private final Map<Integer, MoveEffect> effects = new HashMap<>();
+
+    private PrecomputedMoves(long key) {
+        this.key = key;
+    }
+
+    /**
+     * Computes the effects of the legal moves of the side to move on the given chessboard. Every move
+     * is performed and then taken back, so the chessboard should not be used by anyone else. The
+     * computation stops with a {@link CancellationException} as soon as the current thread is
+     * interrupted.
+     *
+     * @param chessboard the chessboard, usually a copy of the one of a match.
+     * @return the effects of the legal moves of the side to move.
+     */
+    public static PrecomputedMoves compute(Chessboard chessboard){
+        Position position = chessboard.getPosition();
+        PrecomputedMoves precomputed = new PrecomputedMoves(position.getKey());
+        Evaluator evaluator = new Evaluator(chessboard);
+        MoveBuffer moves = new MoveBuffer();
+        evaluator.getCalculator().generateLegalMoves(position.getSideToMove(), moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            if (Thread.currentThread().isInterrupted())
+                throw new CancellationException("Precomputation interrupted");
+            int origin = PackedMove.getOrigin(moves.get(i));
+            int target = PackedMove.getTarget(moves.get(i));
+            MoveEffect effect = evaluator.evaluate(new Move(chessboard.getSquareAt(origin), chessboard.getSquareAt(target)));
+            chessboard.unmakeMove();
+            precomputed.effects.put(origin * 64 + target, effect);
+        }
+        return precomputed;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the effect of the move between the given squares, <code>MoveEffect.ILLEGAL</code> if
+     * the move is not legal.
+     *
+     * @param origin the index of the origin square.
+     * @param target the index of the target square.
+     * @return the effect of the move.
+     */
+    public MoveEffect getEffect(int origin, int target){
+        return effects.getOrDefault(origin * 64 + target, MoveEffect.ILLEGAL);
+    }
+
+    /**
+     * Returns the effect of the given move, <code>MoveEffect.ILLEGAL</code> if the move is not legal.
+     *
+     * @param move the move.
+     * @return the effect of the move.
+     */
+    public MoveEffect getEffect(Move move){
+        return getEffect(move.getOrigin().index(), move.getTarget().index());
+    }
+
+    public int size(){
+        return effects.size();
+    }
+}
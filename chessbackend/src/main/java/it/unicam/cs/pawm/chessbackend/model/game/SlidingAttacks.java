@@ -0,0 +1,131 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+/**
+ * This class computes the attacks of the sliding pieces (rooks, bishops and queens) using magic
+ * bitboards.
+ *
+ * For every square, the occupancy of the squares that can block a slider is hashed with a
+ * multiplication by a magic number, and the hash is used as the index of a table holding the
+ * precomputed attacks for that occupancy. The magic numbers are searched once, when the class is
+ * loaded, starting from a fixed seed; after that, the attacks of a slider on any occupancy are a
+ * multiplication, a shift and an array read.
+ */
+public final class SlidingAttacks {
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] ROOK_MAGICS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final long[][] ROOK_ATTACKS = new long[64][];
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final long[] BISHOP_MAGICS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] BISHOP_ATTACKS = new long[64][];
+
+    private static long seed = 0x2545F4914F6CDD1DL;
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            initialize(square, false, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_ATTACKS);
+            initialize(square, true, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_ATTACKS);
+        }
+    }
+
+    private SlidingAttacks() {
+    }
+
+    public static long rook(int square, long occupied){
+        return ROOK_ATTACKS[square][(int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long bishop(int square, long occupied){
+        return BISHOP_ATTACKS[square][(int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queen(int square, long occupied){
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    private static void initialize(int square, boolean diagonal, long[] masks, long[] magics, int[] shifts,
+                                   long[][] attacks){
+        long mask = relevantOccupancy(square, diagonal);
+        int bits = Bitboards.count(mask);
+        int size = 1 << bits;
+        long[] occupancies = new long[size];
+        long[] references = new long[size];
+
+        long subset = 0;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            references[i] = walk(square, subset, diagonal);
+            subset = (subset - mask) & mask;
+        }
+
+        long[] table = new long[size];
+        int[] epochs = new int[size];
+        int epoch = 0;
+        long magic;
+        boolean found;
+        do {
+            magic = sparseRandom();
+            if (Bitboards.count((mask * magic) & 0xFF00000000000000L) < 6)
+                continue;
+            epoch++;
+            found = true;
+            for (int i = 0; i < size && found; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                if (epochs[index] < epoch) {
+                    epochs[index] = epoch;
+                    table[index] = references[i];
+                } else if (table[index] != references[i]) {
+                    found = false;
+                }
+            }
+            if (found)
+                break;
+        } while (true);
+
+        masks[square] = mask;
+        magics[square] = magic;
+        shifts[square] = 64 - bits;
+        attacks[square] = table;
+    }
+
+    /**
+     * Computes the squares whose occupancy can change the attacks of a slider placed on the given
+     * square: the squares on the edge of the chessboard are excluded, since a slider reaches them
+     * whether they are occupied or not.
+     */
+    private static long relevantOccupancy(int square, boolean diagonal){
+        long mask = Bitboards.EMPTY;
+        for (Direction direction : Direction.values()) {
+            if (direction.isDiagonal() != diagonal)
+                continue;
+            long current = direction.shift(Bitboards.bit(square));
+            while (direction.shift(current) != 0) {
+                mask |= current;
+                current = direction.shift(current);
+            }
+        }
+        return mask;
+    }
+
+    private static long walk(int square, long occupied, boolean diagonal){
+        long attacks = Bitboards.EMPTY;
+        for (Direction direction : Direction.values()) {
+            if (direction.isDiagonal() == diagonal)
+                attacks |= Bitboards.ray(square, direction, occupied);
+        }
+        return attacks;
+    }
+
+    private static long sparseRandom(){
+        return nextRandom() & nextRandom() & nextRandom();
+    }
+
+    private static long nextRandom(){
+        seed ^= seed >>> 12;
+        seed ^= seed << 25;
+        seed ^= seed >>> 27;
+        return seed * 0x2545F4914F6CDD1DL;
+    }
+}
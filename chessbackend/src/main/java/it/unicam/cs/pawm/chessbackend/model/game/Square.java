@@ -13,12 +13,18 @@ public class Square {
     private final int row;
     private final int column;
     private final Color color;
+    private final Position position;
     private Piece piece;
 
     public Square(int row, int column, Color color) {
+        this(row, column, color, null);
+    }
+
+    Square(int row, int column, Color color, Position position) {
         this.row = getIfValid(row);
         this.column = getIfValid(column);
         this.color = color;
+        this.position = position;
     }
 
     private int getIfValid(int index) {
@@ -40,6 +46,15 @@ public class Square {
         return color;
     }
 
+    /**
+     * Returns the index of the bit representing this square in a bitboard.
+     *
+     * @return the index of this square in a bitboard.
+     */
+    int index(){
+        return Bitboards.square(row, column);
+    }
+
     public boolean isEmpty(){
         return piece == null;
     }
@@ -67,19 +82,41 @@ public class Square {
      *         this operation).
      */
     public Optional<Piece> occupyWith(Piece piece){
-        if (getPiece().isPresent()){
-            Piece previous = getPiece().get();
-            this.piece = Objects.requireNonNull(piece);
-            return Optional.of(previous);
+        Optional<Piece> previous = getPiece();
+        put(piece);
+        return previous;
+    }
+
+    /**
+     * Returns the piece currently occupying this square, or null if the square is empty.
+     *
+     * @return the piece currently occupying this square, or null.
+     */
+    Piece piece(){
+        return piece;
+    }
+
+    /**
+     * Occupies this square with a given piece, replacing the piece previously occupying it.
+     *
+     * @param piece the piece used to occupy this square.
+     */
+    void put(Piece piece){
+        Objects.requireNonNull(piece);
+        if (position != null) {
+            if (this.piece != null)
+                position.remove(index(), this.piece);
+            position.place(index(), piece);
         }
-        this.piece = Objects.requireNonNull(piece);
-        return Optional.empty();
+        this.piece = piece;
     }
 
     /**
      * Frees this square making it empty.
      */
     public void free(){
+        if (position != null && piece != null)
+            position.remove(index(), piece);
         piece = null;
     }
 
@@ -93,7 +130,7 @@ public class Square {
 
     @Override
     public int hashCode() {
-        return Objects.hash(row, column, color);
+        return index();
     }
 
     @Override
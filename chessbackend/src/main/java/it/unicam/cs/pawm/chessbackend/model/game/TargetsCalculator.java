@@ -1,14 +1,28 @@
 package it.unicam.cs.pawm.chessbackend.model.game;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * A target calculator computes all the possible targets reachable by a piece of a given type from the
  * square that it is currently occupying.
+ *
+ * The targets are computed on the bitboard {@link Position} of the chessboard and converted to
+ * squares only when they are returned.
  */
 public class TargetsCalculator {
+    /**
+     * The order in which the pieces are tried when looking for any legal move: the king and the minor
+     * pieces are the most likely to have one and the cheapest to check, the pawns are the most likely
+     * to be blocked.
+     */
+    private static final PieceType[] MOBILITY_ORDER = {
+        PieceType.KING, PieceType.KNIGHT, PieceType.BISHOP, PieceType.QUEEN, PieceType.ROOK, PieceType.PAWN
+    };
+
     private final Chessboard chessboard;
+    private final PositionAnalysis[] analyses = {
+        new PositionAnalysis(Color.WHITE), new PositionAnalysis(Color.BLACK)
+    };
 
     public TargetsCalculator(Chessboard chessboard) {
         this.chessboard = chessboard;
@@ -18,219 +32,178 @@ public class TargetsCalculator {
         return chessboard;
     }
 
-    public Set<Square> defendedSquares(Piece piece){
-        Square origin = chessboard.getSquareFor(piece);
-        return switch (piece.getPieceType()){
-            case PAWN -> pawnDefendedSquares(piece, origin);
-            case ROOK -> rookDefendedSquares(piece, origin);
-            case BISHOP -> bishopDefendedSquares(piece, origin);
-            case KNIGHT -> knightDefendedSquares(piece, origin);
-            case QUEEN -> queenDefendedSquares(piece, origin);
-            case KING -> kingDefendedSquares(piece, origin);
-        };
-    }
-
-    private Set<Square> kingDefendedSquares(Piece piece, Square origin) {
-        return Arrays.stream(Direction.values())
-            .map(d -> chessboard.getSquareFrom(origin, d))
-                .filter(Optional::isPresent)
-                    .map(Optional::get)
-                        .collect(Collectors.toSet());
+    private int squareOf(Piece piece){
+        int square = chessboard.getPosition().getSquareOf(piece);
+        if (square < 0)
+            throw new IllegalArgumentException("The piece is not on the chessboard.");
+        return square;
     }
 
-    private Set<Square> knightDefendedSquares(Piece piece, Square origin) {
-        Set<Optional<Square>> possibleTargets = new HashSet<>();
-
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.UP, Direction.LEFT, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.UP, Direction.RIGTH, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.LEFT, Direction.UP, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.LEFT, Direction.DOWN, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.DOWN, Direction.LEFT, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.DOWN, Direction.RIGTH, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.RIGTH, Direction.UP, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.RIGTH, Direction.DOWN, 2, 1));
-
-        return possibleTargets.stream()
-                .filter(Optional::isPresent)
-                    .map(Optional::get)
-                        .collect(Collectors.toSet());
+    public Set<Square> defendedSquares(Piece piece){
+        return chessboard.getSquaresIn(defendedMask(piece, squareOf(piece)));
     }
 
-    private Set<Square> queenDefendedSquares(Piece piece, Square origin) {
-        return Arrays.stream(Direction.values())
-            .map(d -> defendedSquaresForDirection(origin, piece, d))
-                .flatMap(Set::stream)
-                    .collect(Collectors.toSet());
+    /**
+     * Computes the squares defended by a piece placed on the given square: a defended square is a
+     * square that the piece attacks, regardless of the piece occupying it. The sliding pieces keep
+     * defending the squares behind the enemy king, since the king cannot escape along their lines.
+     *
+     * @param piece the defending piece.
+     * @param origin the square occupied by the piece.
+     * @return the bitboard of the squares defended by the piece.
+     */
+    long defendedMask(Piece piece, int origin){
+        Position position = chessboard.getPosition();
+        long occupied = position.getOccupied() & ~position.getPieces(PieceType.KING, piece.getColor().swap());
+        return attacks(piece.getPieceType(), piece.getColor(), origin, occupied);
+    }
+
+    private long attacks(PieceType type, Color color, int origin, long occupied){
+        return switch (type){
+            case PAWN -> AttackTables.pawn(origin, color);
+            case ROOK -> SlidingAttacks.rook(origin, occupied);
+            case BISHOP -> SlidingAttacks.bishop(origin, occupied);
+            case KNIGHT -> AttackTables.knight(origin);
+            case QUEEN -> SlidingAttacks.queen(origin, occupied);
+            case KING -> AttackTables.king(origin);
+        };
     }
 
-    private Set<Square> bishopDefendedSquares(Piece piece, Square origin) {
-        return Arrays.stream(Direction.values())
-            .filter(Direction::isDiagonal)
-                .map(d -> defendedSquaresForDirection(origin, piece, d))
-                    .flatMap(Set::stream)
-                        .collect(Collectors.toSet());
+    /**
+     * Computes the possible target squares that a specific piece can reach applying its move rules.
+     *
+     * @param piece the piece to move.
+     * @return the possible target squares that a specific piece can reach applying its move rules.
+     */
+    public Set<Square> computePossibleTargets(Piece piece) {
+        return chessboard.getSquaresIn(targetsMask(piece));
     }
 
-    private Set<Square> rookDefendedSquares(Piece piece, Square origin) {
-        return Arrays.stream(Direction.values())
-            .filter(d -> !d.isDiagonal())
-                .map(d -> defendedSquaresForDirection(origin, piece, d))
-                    .flatMap(Set::stream)
-                        .collect(Collectors.toSet());
+    /**
+     * Computes the bitboard of the target squares that a specific piece can reach applying its move
+     * rules.
+     *
+     * @param piece the piece to move.
+     * @return the bitboard of the target squares that the piece can reach.
+     */
+    long targetsMask(Piece piece){
+        return targetsMask(piece, squareOf(piece));
     }
 
-    private Set<Square> defendedSquaresForDirection(Square origin, Piece piece, Direction direction) {
-        List<Square> empty = chessboard.getEmptySquaresFrom(origin, direction);
-        Set<Square> defended = new HashSet<>(empty);
-        Optional<Square> square;
-
-        if (!empty.isEmpty()) {
-            square = chessboard.getSquareFrom(empty.get(empty.size() - 1), direction);
-        } else {
-            square = chessboard.getSquareFrom(origin, direction);
-        }
+    private long targetsMask(Piece piece, int origin){
+        long targets = pseudoTargets(piece, origin);
 
-        if (square.isPresent()) {
-            if (square.get().getPiece().isPresent()) {
-                Piece p = square.get().getPiece().get();
-                if (p.getPieceType().equals(PieceType.KING) && !p.getColor().equals(piece.getColor())) {
-                    defended.addAll(chessboard.getEmptySquaresFrom(square.get(), direction));
-                }
-                defended.add(square.get());
+        if (piece.getPieceType().equals(PieceType.KING))
+            return safeKingTargets(targets, origin, piece.getColor());
 
-            } else {
-                defended.add(square.get());
-            }
-        }
-        return defended;
+        PositionAnalysis analysis = analyze(piece.getColor());
+        return targets & analysis.getCheckMask() & analysis.getPinRay(origin);
     }
 
-    private Set<Square> pawnDefendedSquares(Piece piece, Square origin) {
-        Set<Square> defended = new HashSet<>();
-        Optional<Square> right;
-        Optional<Square> left;
-        if (piece.getColor().equals(Color.WHITE)){
-            right = chessboard.getSquareFrom(origin, Direction.UPRIGTH);
-            left = chessboard.getSquareFrom(origin, Direction.UPLEFT);
-        } else {
-            right = chessboard.getSquareFrom(origin, Direction.DOWNRIGTH);
-            left = chessboard.getSquareFrom(origin, Direction.DOWNLEFT);
-        }
-
-        right.ifPresent(defended::add);
-        left.ifPresent(defended::add);
+    /**
+     * Generates all the legal moves of the pieces of a given color, writing them encoded with
+     * {@link PackedMove} in the given buffer. The buffer is cleared before the generation and no
+     * object is allocated, so the same buffer can be reused for every position.
+     *
+     * @param color the color of the pieces to move.
+     * @param moves the buffer where the moves are written.
+     * @return the number of legal moves generated.
+     */
+    public int generateLegalMoves(Color color, MoveBuffer moves){
+        Position position = chessboard.getPosition();
+        moves.clear();
 
-        return defended;
+        for (int i = 0; i < position.getPieceCount(color); i++)
+            addMoves(position.getPiece(color, i), position.getPieceSquare(color, i), moves);
+        return moves.size();
     }
 
     /**
-     * Computes the possible target squares that a specific piece can reach applying its move rules.
+     * Generates the legal moves of a given piece, writing them encoded with {@link PackedMove} in the
+     * given buffer. The buffer is cleared before the generation.
      *
      * @param piece the piece to move.
-     * @return the possible target squares that a specific piece can reach applying its move rules.
+     * @param moves the buffer where the moves are written.
+     * @return the number of legal moves generated.
      */
-    public Set<Square> computePossibleTargets(Piece piece) {
-        Square origin = chessboard.getSquareFor(piece);
-
-        if (isPinned(piece))
-            return Collections.emptySet();
-
-        if (!piece.getPieceType().equals(PieceType.KING)){
-            Piece king;
-            if(chessboard.getPiece(PieceType.KING, piece.getColor()).isPresent()){
-                king = chessboard.getPiece(PieceType.KING, piece.getColor()).get();
-                if (!getCheckingPieces(Objects.requireNonNull(king)).isEmpty()){
-                    return targetsIfCheck(piece, origin, king);
-                } else {
-                    return switch (piece.getPieceType()) {
-                        case PAWN -> computePawnTargets(piece, origin);
-                        case ROOK -> computeRookTargets(piece, origin);
-                        case BISHOP -> computeBishopTargets(piece, origin);
-                        case KNIGHT -> computeKnightTargets(piece, origin);
-                        case QUEEN -> computeQueenTargets(piece, origin);
-                        case KING -> computeKingTargets(piece, origin);
-                    };
-                }
-            }
+    public int generateLegalMoves(Piece piece, MoveBuffer moves){
+        moves.clear();
+        addMoves(piece, squareOf(piece), moves);
+        return moves.size();
+    }
+
+    private void addMoves(Piece piece, int origin, MoveBuffer moves){
+        long enemies = chessboard.getPosition().getOccupancy(piece.getColor().swap());
+        long targets = targetsMask(piece, origin);
+        boolean isPawn = piece.getPieceType().equals(PieceType.PAWN);
+
+        while (targets != 0){
+            int target = Bitboards.first(targets);
+            int flags = Bitboards.contains(enemies, target) ? PackedMove.CAPTURE : PackedMove.NONE;
+            if (isPawn && Math.abs(target - origin) == 16)
+                flags |= PackedMove.DOUBLE_PUSH;
+            moves.add(PackedMove.encode(origin, target, flags));
+            targets &= targets - 1;
         }
+    }
 
-        return switch (piece.getPieceType()) {
-            case PAWN -> computePawnTargets(piece, origin);
-            case ROOK -> computeRookTargets(piece, origin);
-            case BISHOP -> computeBishopTargets(piece, origin);
-            case KNIGHT -> computeKnightTargets(piece, origin);
-            case QUEEN -> computeQueenTargets(piece, origin);
-            case KING -> computeKingTargets(piece, origin);
-        };
+    /**
+     * Returns the analysis of the current position for the king of the given color. The analysis is
+     * computed once per position and reused until a piece is placed or removed.
+     *
+     * @param color the color of the king.
+     * @return the analysis of the current position for the king of the given color.
+     */
+    public PositionAnalysis analyze(Color color){
+        PositionAnalysis analysis = analyses[color.ordinal()];
+        if (!analysis.isValidFor(chessboard.getPosition()))
+            analysis.analyze(chessboard.getPosition());
+        return analysis;
     }
 
-    private Set<Square> targetsIfCheck(Piece piece, Square origin, Piece king) {
-        if (getCheckingPieces(Objects.requireNonNull(king)).size() >= 2)
-            return Collections.emptySet();
-        else if (getCheckingPieces(Objects.requireNonNull(king)).size() == 1){
-            Piece checking = getCheckingPieces(king).get(0);
-            Square checkingSquare = chessboard.getSquareFor(checking);
-            Optional<Square> toDefend = defendedSquares(king).stream()
-                .filter(s -> computePossibleTargets(checking).contains(s)).findFirst();
-            return targetsIfCheckOfPiece(piece, origin, toDefend, checkingSquare);
+    /**
+     * Keeps only the king targets that are not attacked by the enemy pieces. The king is removed from
+     * the occupancy, so that it cannot hide from a slider behind its own square.
+     */
+    private long safeKingTargets(long targets, int origin, Color color){
+        Position position = chessboard.getPosition();
+        long occupied = position.getOccupied() & ~Bitboards.bit(origin);
+        long safe = Bitboards.EMPTY;
+
+        while (targets != 0){
+            int target = Bitboards.first(targets);
+            if (!position.isAttacked(target, color.swap(), occupied))
+                safe |= Bitboards.bit(target);
+            targets &= targets - 1;
         }
-        return null;
+        return safe;
     }
 
-    private Set<Square> targetsIfCheckOfPiece(Piece piece, Square origin, Optional<Square> toDefend, Square checkingSquare) {
-        Set<Square> targets = new HashSet<>();
-        if (toDefend.isPresent()){
-            switch (piece.getPieceType()){
-                case PAWN -> {
-                    if (computePawnTargets(piece, origin).contains(toDefend.get()))
-                        targets.add(toDefend.get());
-                    if (computePawnTargets(piece, origin).contains(checkingSquare))
-                        targets.add(checkingSquare);
-                }
-                case KNIGHT -> {
-                    if (computeKnightTargets(piece, origin).contains(toDefend.get()))
-                        targets.add(toDefend.get());
-                    if (computeKnightTargets(piece, origin).contains(checkingSquare))
-                        targets.add(checkingSquare);
-                }case QUEEN -> {
-                    if (computeQueenTargets(piece, origin).contains(toDefend.get()))
-                        targets.add(toDefend.get());
-                    if (computeQueenTargets(piece, origin).contains(checkingSquare))
-                        targets.add(checkingSquare);
-                }case BISHOP -> {
-                    if (computeBishopTargets(piece, origin).contains(toDefend.get()))
-                        targets.add(toDefend.get());
-                    if (computeBishopTargets(piece, origin).contains(checkingSquare))
-                        targets.add(checkingSquare);
-                }case ROOK -> {
-                    if (computeRookTargets(piece, origin).contains(toDefend.get()))
-                        targets.add(toDefend.get());
-                    if (computeRookTargets(piece, origin).contains(checkingSquare))
-                        targets.add(checkingSquare);
-                }
-            }
-        } else {
-            switch (piece.getPieceType()){
-                case PAWN -> {
-                    if (computePawnTargets(piece, origin).contains(checkingSquare))
-                        targets.add(checkingSquare);
-                }
-                case KNIGHT -> {
-                    if (computeKnightTargets(piece, origin).contains(checkingSquare))
-                        targets.add(checkingSquare);
-                }case QUEEN -> {
-                    if (computeQueenTargets(piece, origin).contains(checkingSquare))
-                        targets.add(checkingSquare);
-                }case BISHOP -> {
-                    if (computeBishopTargets(piece, origin).contains(checkingSquare))
-                        targets.add(checkingSquare);
-                }case ROOK -> {
-                    if (computeRookTargets(piece, origin).contains(checkingSquare))
-                        targets.add(checkingSquare);
-                }
-            }
-        }
-        return targets;
+    /**
+     * Computes the targets of a piece applying its move rules, without considering the safety of its
+     * king. The kings can never be captured, so their squares are never targets.
+     */
+    private long pseudoTargets(Piece piece, int origin){
+        Position position = chessboard.getPosition();
+        long allowed = ~position.getOccupancy(piece.getColor()) & ~position.getKings();
+
+        return switch (piece.getPieceType()){
+            case PAWN -> pawnTargets(piece, origin) & allowed;
+            case KING -> AttackTables.king(origin) & allowed;
+            default -> attacks(piece.getPieceType(), piece.getColor(), origin, position.getOccupied()) & allowed;
+        };
+    }
+
+    private long pawnTargets(Piece piece, int origin){
+        Position position = chessboard.getPosition();
+        long empty = position.getEmpty();
+
+        long targets = AttackTables.pawnPush(origin, piece.getColor()) & empty;
+        if (!piece.hasMoved() && targets != 0)
+            targets |= AttackTables.pawnPush(Bitboards.first(targets), piece.getColor()) & empty;
+
+        return targets | (AttackTables.pawn(origin, piece.getColor())
+            & position.getOccupancy(piece.getColor().swap()));
     }
 
     /**
@@ -242,7 +215,34 @@ public class TargetsCalculator {
      *         otherwise.
      */
     public boolean canMove(Piece piece){
-        return computePossibleTargets(piece).size() != 0;
+        return targetsMask(piece) != 0;
+    }
+
+    /**
+     * Returns true if at least one piece of the given color has a legal move, false otherwise. The
+     * pieces are tried following {@link #MOBILITY_ORDER} and the search stops at the first piece that
+     * can move; when the king is checked by two pieces only the king is tried, since no other piece
+     * can answer a double check.
+     *
+     * @param color the color of the pieces.
+     * @return true if the pieces of the given color have at least one legal move, false otherwise.
+     */
+    public boolean hasAnyLegalMove(Color color){
+        Position position = chessboard.getPosition();
+        boolean doubleCheck = Long.bitCount(analyze(color).getCheckers()) > 1;
+
+        for (PieceType type : MOBILITY_ORDER) {
+            long pieces = position.getPieces(type, color);
+            while (pieces != 0) {
+                int origin = Bitboards.first(pieces);
+                if (targetsMask(chessboard.getSquareAt(origin).piece(), origin) != 0)
+                    return true;
+                pieces &= pieces - 1;
+            }
+            if (doubleCheck)
+                return false;
+        }
+        return false;
     }
 
     /**
@@ -255,111 +255,73 @@ public class TargetsCalculator {
     public List<Piece> getCheckingPieces(Piece piece){
         if (!piece.getPieceType().equals(PieceType.KING))
             throw new IllegalArgumentException("Only the king could be checked.");
-        Square kingSquare = chessboard.getSquareFor(piece);
-        Set<Square> kingDefended = defendedSquares(piece);
-        List<Piece> checking = new ArrayList<>();
-        Set<Piece> enemies = chessboard.getPiecesOfColor(piece.getColor().swap());
-
-        for (Piece p: enemies) {
-            if (!isPinned(p)){
-                switch (p.getPieceType()){
-                    case PAWN -> {
-                        if (defendedSquares(p).contains(kingSquare))
-                            checking.add(p);
-                    }
-                    case KNIGHT -> {
-                        if (computeKnightTargets(p, chessboard.getSquareFor(p)).contains(kingSquare))
-                            checking.add(p);
-                    }
-                    case BISHOP -> {
-                        if (computeBishopTargets(p, chessboard.getSquareFor(p)).stream()
-                            .filter(kingDefended::contains).anyMatch(Square::isEmpty))
-                            checking.add(p);
-                    }
-                    case ROOK -> {
-                        if (computeRookTargets(p, chessboard.getSquareFor(p)).stream()
-                            .filter(kingDefended::contains).anyMatch(Square::isEmpty))
-                            checking.add(p);
-                    }
-                    case QUEEN -> {
-                        if (computeQueenTargets(p, chessboard.getSquareFor(p)).stream()
-                            .filter(kingDefended::contains).anyMatch(Square::isEmpty))
-                            checking.add(p);
-                    }
-                }
-            }
-        }
-        return checking;
-    }
+        long checking = checkingMask(squareOf(piece), piece.getColor());
+        List<Piece> pieces = new ArrayList<>();
 
-    public Set<Piece> getPinnedPiecesBy(Piece piece){
-        return switch (piece.getPieceType()){
-            case QUEEN -> checkPinnedByQueen(piece);
-            case BISHOP -> checkPinnedByBishop(piece);
-            case ROOK -> checkPinnedByRook(piece);
-            default -> throw new IllegalStateException("Unexpected value: " + piece.getPieceType());
-        };
+        while (checking != 0){
+            pieces.add(chessboard.getPieceAt(Bitboards.first(checking)));
+            checking &= checking - 1;
+        }
+        return pieces;
     }
 
-    private Set<Piece> checkPinnedByRook(Piece piece) {
-        return Arrays.stream(Direction.values())
-            .filter(d -> !d.isDiagonal())
-                .map(d -> getPinnedPieceOnDirection(piece, d))
-                    .filter(Optional::isPresent)
-                        .map(Optional::get)
-                            .collect(Collectors.toSet());
+    /**
+     * Computes the bitboard of the enemy pieces attacking the king of the given color placed on the
+     * given square.
+     */
+    private long checkingMask(int kingSquare, Color color){
+        PositionAnalysis analysis = analyze(color);
+        if (analysis.getKingSquare() == kingSquare)
+            return analysis.getCheckers();
+        Position position = chessboard.getPosition();
+        return position.getAttackers(kingSquare, color.swap(), position.getOccupied());
     }
 
-    private Set<Piece> checkPinnedByBishop(Piece piece) {
-        return Arrays.stream(Direction.values())
-            .filter(Direction::isDiagonal)
-                .map(d -> getPinnedPieceOnDirection(piece, d))
-                    .filter(Optional::isPresent)
-                        .map(Optional::get)
-                            .collect(Collectors.toSet());
+    /**
+     * Tells if the king of the given color is checked.
+     *
+     * @param color the color of the king.
+     * @return true if the king of the given color is checked, false otherwise.
+     */
+    public boolean isCheck(Color color){
+        return analyze(color).isCheck();
     }
 
-    private Set<Piece> checkPinnedByQueen(Piece piece) {
-        return Arrays.stream(Direction.values())
-            .map(d -> getPinnedPieceOnDirection(piece, d))
-                .filter(Optional::isPresent)
-                    .map(Optional::get)
-                        .collect(Collectors.toSet());
+    /**
+     * Returns true if the given square is attacked by at least one piece of the given color, false
+     * otherwise.
+     *
+     * @param square the square.
+     * @param color the color of the attacking pieces.
+     * @return true if the square is attacked by the pieces of the given color, false otherwise.
+     */
+    public boolean isAttacked(Square square, Color color){
+        Position position = chessboard.getPosition();
+        return position.isAttacked(square.index(), color, position.getOccupied());
     }
 
-    private Optional<Piece> getPinnedPieceOnDirection(Piece piece, Direction direction){
-        Square origin = chessboard.getSquareFor(piece);
-        Optional<Square> current = chessboard.getSquareFrom(origin, direction);
-        List<Piece> pieces = new ArrayList<>();
-
-        while (current.isPresent()){
-            if (current.get().getPiece().isPresent()){
-                if (!current.get().getPiece().get().getColor().equals(piece.getColor())){
-                    pieces.add(current.get().getPiece().get());
-                    current = chessboard.getSquareFrom(current.get(), direction);
-                } else
-                    break;
-            } else {
-                current = chessboard.getSquareFrom(current.get(), direction);
+    public Set<Piece> getPinnedPiecesBy(Piece piece){
+        return switch (piece.getPieceType()){
+            case QUEEN, BISHOP, ROOK -> {
+                int origin = squareOf(piece);
+                PositionAnalysis analysis = analyze(piece.getColor().swap());
+                long pinned = analysis.getPinned();
+                Set<Piece> pieces = new HashSet<>();
+                while (pinned != 0){
+                    int square = Bitboards.first(pinned);
+                    if (Bitboards.contains(analysis.getPinRay(square), origin))
+                        pieces.add(chessboard.getPieceAt(square));
+                    pinned &= pinned - 1;
+                }
+                yield pieces;
             }
-        }
-
-        if (pieces.size() >= 2 && pieces.get(1).getPieceType().equals(PieceType.KING))
-            return Optional.of(pieces.get(0));
-        return Optional.empty();
+            default -> throw new IllegalStateException("Unexpected value: " + piece.getPieceType());
+        };
     }
 
     public boolean isPinned(Piece piece){
-        if (piece.getPieceType().equals(PieceType.KING))
-            return false;
-
-        return chessboard.getPiecesOfColor(piece.getColor().swap()).stream()
-            .filter(
-                p -> p.getPieceType().equals(PieceType.BISHOP)
-                    || p.getPieceType().equals(PieceType.QUEEN) || p.getPieceType().equals(PieceType.ROOK)
-            ).map(this::getPinnedPiecesBy)
-                .flatMap(Set::stream)
-                    .anyMatch(p -> p.equals(piece));
+        int origin = chessboard.getPosition().getSquareOf(piece);
+        return origin >= 0 && analyze(piece.getColor()).isPinned(origin);
     }
 
 
@@ -370,177 +332,20 @@ public class TargetsCalculator {
      * @return the set of all possible targets of all the pieces of a given color.
      */
     public Set<Square> targetsOfPiecesOfColor(Color color){
-        Set<Piece> pieces = chessboard.getPiecesOfColor(color);
+        Position position = chessboard.getPosition();
+        long targets = Bitboards.EMPTY;
 
-        return pieces.stream()
-            .map(this::computePossibleTargets)
-                .flatMap(Set::stream)
-                    .collect(Collectors.toSet());
+        for (int i = 0; i < position.getPieceCount(color); i++)
+            targets |= targetsMask(position.getPiece(color, i), position.getPieceSquare(color, i));
+        return chessboard.getSquaresIn(targets);
     }
 
     public Set<Square> defendedSquaresForPiecesOf(Color color){
-        Set<Piece> pieces = chessboard.getPiecesOfColor(color);
-
-        return pieces.stream()
-                .map(this::defendedSquares)
-                    .flatMap(Set::stream)
-                        .collect(Collectors.toSet());
-
-    }
-
-    private Set<Square> computeKingTargets(Piece piece, Square origin) {
-        return Arrays.stream(Direction.values())
-                    .map(d -> chessboard.getSquareFrom(origin, d))
-                        .filter(Optional::isPresent)
-                            .map(Optional::get)
-                                .filter(
-                                    s -> (s.isEmpty() ||
-                                        (
-                                            s.getPiece().isPresent() &&
-                                                !s.getPiece().get().getColor().equals(piece.getColor())
-                                        )) && !defendedSquaresForPiecesOf(piece.getColor().swap()).contains(s)
-                                )
-                                    .collect(Collectors.toSet());
-    }
-
-    private Set<Square> computeKnightTargets(Piece piece, Square origin) {
-        Set<Optional<Square>> possibleTargets = new HashSet<>();
-
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.UP, Direction.LEFT, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.UP, Direction.RIGTH, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.LEFT, Direction.UP, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.LEFT, Direction.DOWN, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.DOWN, Direction.LEFT, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.DOWN, Direction.RIGTH, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.RIGTH, Direction.UP, 2, 1));
-        possibleTargets.add(chessboard.getSquareFrom(origin, Direction.RIGTH, Direction.DOWN, 2, 1));
-
-        return possibleTargets.stream()
-                    .filter(Optional::isPresent)
-                        .map(Optional::get)
-                            .filter(
-                                s -> s.isEmpty() ||
-                                    (s.getPiece().isPresent() &&
-                                        !s.getPiece().get().getColor().equals(piece.getColor()) &&
-                                        !s.getPiece().get().getPieceType().equals(PieceType.KING)
-                                    )
-                            )
-                                    .collect(Collectors.toSet());
-    }
-
-    private Set<Square> computeQueenTargets(Piece piece, Square origin) {
+        Position position = chessboard.getPosition();
+        long defended = Bitboards.EMPTY;
 
-        return Arrays.stream(Direction.values())
-                    .map(d -> moveTargets(piece, origin, d))
-                        .flatMap(Set::stream)
-                            .collect(Collectors.toSet());
+        for (int i = 0; i < position.getPieceCount(color); i++)
+            defended |= defendedMask(position.getPiece(color, i), position.getPieceSquare(color, i));
+        return chessboard.getSquaresIn(defended);
     }
-
-    private Set<Square> computeBishopTargets(Piece piece, Square origin) {
-        return Arrays.stream(Direction.values())
-                    .filter(Direction::isDiagonal)
-                        .map(d -> moveTargets(piece, origin, d))
-                            .flatMap(Set::stream)
-                                .collect(Collectors.toSet());
-    }
-
-    private Set<Square> computeRookTargets(Piece piece, Square origin) {
-
-        return Arrays.stream(Direction.values())
-                    .filter(d -> !d.isDiagonal())
-                        .map(d -> moveTargets(piece, origin, d))
-                            .flatMap(Set::stream)
-                                .collect(Collectors.toSet());
-    }
-
-    private Set<Square> moveTargets(Piece piece, Square origin, Direction direction) {
-        List<Square> emptySquares = chessboard.getEmptySquaresFrom(origin, direction);
-        Set<Square> targets = new HashSet<>(emptySquares);
-        Optional<Square> squareToCheck;
-
-        if (emptySquares.isEmpty()){
-            squareToCheck = chessboard.getSquareFrom(origin, direction);
-        } else {
-            squareToCheck = chessboard.getSquareFrom(emptySquares.get(emptySquares.size() - 1), direction);
-        }
-        if (squareToCheck.isPresent()){
-            if (squareToCheck.get().getPiece().isPresent()){
-                Piece toCapture = squareToCheck.get().getPiece().get();
-                if (!toCapture.getPieceType().equals(PieceType.KING)){
-                    if (!toCapture.getColor().equals(piece.getColor()))
-                        targets.add(squareToCheck.get());
-                }
-            }
-        }
-        return targets;
-    }
-
-    private Set<Square> computePawnTargets(Piece piece, Square origin) {
-        Set<Square> targets = new HashSet<>();
-
-        Set<Square> upTargets = computeVertical(piece, origin);
-        Set<Square> diagonalTargets = computeDiagonal(piece, origin);
-        targets.addAll(upTargets);
-        targets.addAll(diagonalTargets);
-
-        return targets;
-    }
-
-    private Set<Square> computeDiagonal(Piece piece, Square origin) {
-        Optional<Square> right;
-        Optional<Square> left;
-        Set<Square> resultSet = new HashSet<>();
-
-        if (piece.getColor().equals(Color.WHITE)) {
-            right = chessboard.getSquareFrom(origin, Direction.UPRIGTH);
-            left = chessboard.getSquareFrom(origin, Direction.UPLEFT);
-        } else {
-            right = chessboard.getSquareFrom(origin, Direction.DOWNRIGTH);
-            left = chessboard.getSquareFrom(origin, Direction.DOWNLEFT);
-        }
-
-        if (right.isPresent()) {
-            if (right.get().getPiece().isPresent()) {
-                Piece toCapture = right.get().getPiece().get();
-                if (!toCapture.getPieceType().equals(PieceType.KING)){
-                    if (!right.get().getPiece().get().getColor().equals(piece.getColor()))
-                        resultSet.add(right.get());
-                }
-            }
-        }
-
-        if (left.isPresent()) {
-            if (left.get().getPiece().isPresent()) {
-                Piece toCapture = left.get().getPiece().get();
-                if (!toCapture.getPieceType().equals(PieceType.KING)){
-                    if (!left.get().getPiece().get().getColor().equals(piece.getColor()))
-                        resultSet.add(left.get());
-                }
-            }
-        }
-        return resultSet;
-    }
-
-    private Set<Square> computeVertical(Piece piece, Square origin) {
-        List<Square> empty;
-
-        if (piece.getColor().equals(Color.WHITE)) {
-            empty = chessboard.getEmptySquaresFrom(origin, Direction.UP);
-        } else {
-            empty = chessboard.getEmptySquaresFrom(origin, Direction.DOWN);
-        }
-
-        if (!piece.hasMoved()) {
-            if (empty.size() >= 2)
-                return Set.of(empty.get(0), empty.get(1));
-            else if (empty.size() == 1)
-                return Set.of(empty.get(0));
-        } else {
-            if (empty.size() != 0)
-                return Set.of(empty.get(0));
-        }
-        return Collections.emptySet();
-    }
-
-
 }
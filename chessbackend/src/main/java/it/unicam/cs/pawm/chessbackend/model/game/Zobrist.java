@@ -0,0 +1,53 @@
+package it.unicam.cs.pawm.chessbackend.model.game;
+
+import java.util.SplittableRandom;
+
+/**
+ * Utility class holding the random keys used to compute the Zobrist key of a position.
+ *
+ * The key of a position is the xor of the keys of its features: one key for every piece type and
+ * color on every square, one key for every square occupied by a pawn that has never moved (the only
+ * state besides the placement used by the rules of this game, since it allows the pawn to advance by
+ * two squares) and one key for black to move. Adding or removing a feature is a single xor, so the
+ * key can be updated incrementally at every move. The keys are generated from a fixed seed and are the
+ * same in every run of the application.
+ */
+final class Zobrist {
+    private static final long SEED = 0x2545F4914F6CDD1DL;
+    private static final long[][][] PIECES = new long[Color.values().length][PieceType.values().length][64];
+    private static final long[] UNMOVED = new long[64];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (long[][] colorKeys : PIECES)
+            for (long[] typeKeys : colorKeys)
+                for (int square = 0; square < 64; square++)
+                    typeKeys[square] = random.nextLong();
+        for (int square = 0; square < 64; square++)
+            UNMOVED[square] = random.nextLong();
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * Returns the key of a piece placed on a square, which depends on the type and color of the piece
+     * and, for the pawns, on whether it has already moved.
+     *
+     * @param piece the piece.
+     * @param square the index of the square.
+     * @return the key of the piece on the square.
+     */
+    static long piece(Piece piece, int square){
+        long key = PIECES[piece.getColor().ordinal()][piece.getPieceType().ordinal()][square];
+        if (piece.hasMoved() || !piece.getPieceType().equals(PieceType.PAWN))
+            return key;
+        return key ^ UNMOVED[square];
+    }
+
+    static long sideToMove(Color color){
+        return color.equals(Color.BLACK) ? BLACK_TO_MOVE : 0L;
+    }
+}
@@ -1,8 +1,11 @@
 package it.unicam.cs.pawm.chessbackend.model.game.match;
 
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Represents a clock used in a chess match: the chess clock keeps track of each player remaining time.
@@ -13,17 +16,45 @@ public class ChessClock {
     private Player previousTurnPlayer;
 
     public ChessClock(PlayerPair players, long timeAmount) {
+        this(players, TimeControl.of(timeAmount), ClockPrecision.SECONDS);
+    }
+
+    /**
+     * Creates a clock with the given time control, charging the time consumed by the players to the
+     * millisecond.
+     *
+     * @param players the players of the match.
+     * @param timeControl the time control of the match.
+     */
+    public ChessClock(PlayerPair players, TimeControl timeControl) {
+        this(players, timeControl, ClockPrecision.MILLISECONDS);
+    }
+
+    public ChessClock(PlayerPair players, TimeControl timeControl, ClockPrecision precision) {
         playerTimers = new HashMap<>();
-        setClock(players, timeAmount);
+        setClock(players, timeControl, precision);
+    }
+
+    private void setClock(PlayerPair players, TimeControl timeControl, ClockPrecision precision) {
+        playerTimers.put(players.getWhitePlayer(), new SimpleTimer(timeControl, precision));
+        playerTimers.put(players.getBlackPlayer(), new SimpleTimer(timeControl, precision));
     }
 
-    private void setClock(PlayerPair players, long timeAmount) {
-        playerTimers.put(players.getWhitePlayer(), new SimpleTimer(timeAmount));
-        playerTimers.put(players.getBlackPlayer(), new SimpleTimer(timeAmount));
+    /**
+     * Registers a task to run when a player runs out of time while his timer is running. The task runs
+     * as soon as the remaining time of the player is read as zero, or at the latest on the tick of the
+     * shared {@link TimerWheel} that follows the flag fall.
+     *
+     * @param listener the task to run, receiving the player without time.
+     */
+    public void onFlagFall(Consumer<Player> listener){
+        playerTimers.forEach((player, timer) -> timer.onExpiration(() -> listener.accept(player)));
     }
 
     public long getRemainingTime(Player player){
-        return playerTimers.get(player).getTimeLeft();
+        SimpleTimer timer = playerTimers.get(player);
+        timer.checkFlagFall();
+        return timer.getTimeLeft();
     }
 
     public Optional<Player> getPlayerWithoutTime(){
@@ -61,33 +92,68 @@ public class ChessClock {
             playerTimers.get(player).pause();
     }
 
+    /**
+     * Returns the player whose timer is running. When no timer runs, between the end of a turn and the
+     * start of the next one or after the match ended, it returns the player who has to move: the
+     * opponent of the player of the previous turn, or the white player if no turn ended yet.
+     *
+     * @return the player who is playing.
+     */
     public Player getCurrentlyPlaying(){
         return playerTimers.entrySet().stream()
             .filter(e -> !e.getValue().isPaused())
                 .map(Map.Entry::getKey)
                     .findFirst()
-                        .orElseThrow();
+                        .orElseGet(() -> previousTurnPlayer == null
+                            ? getWhitePlayer()
+                            : getOther(previousTurnPlayer));
     }
 
     public Player getCurrentlyWaiting(){
-        return playerTimers.keySet().stream()
-            .filter(p -> !p.equals(getCurrentlyPlaying()))
-                .findFirst()
-                    .orElseThrow();
+        return getOther(getCurrentlyPlaying());
+    }
+
+    private Player getOther(Player player) {
+        return playerTimers.keySet().stream().filter(p -> !p.equals(player)).findFirst().orElseThrow();
+    }
+
+    private Player getWhitePlayer() {
+        return playerTimers.keySet().stream().filter(p -> p.getTeam() == Color.WHITE).findFirst().orElseThrow();
     }
 
+    /**
+     * Ends the turn of the player who is playing and starts the turn of his opponent.
+     */
     public void switchPlayer(){
-        previousTurnPlayer = getCurrentlyPlaying();
-        pauseFor(getCurrentlyPlaying());
-        startFor(getOther(previousTurnPlayer));
+        Player current = getCurrentlyPlaying();
+        endTurnOf(current);
+        startFor(getOther(current));
     }
 
-    private Player getOther(Player player) {
-        return playerTimers.keySet().stream().filter(p -> !p.equals(player)).findFirst().orElseThrow();
+    /**
+     * Ends the turn of a player: his timer is paused, adding the increment of the time control if it
+     * was running, while the timer of the other player is not started, so that nobody is charged until
+     * the next turn starts with {@link #startFor(Player)}.
+     *
+     * @param player the player whose turn ends.
+     */
+    public void endTurnOf(Player player){
+        previousTurnPlayer = player;
+        playerTimers.get(player).pause();
     }
 
     public void stop(){
-        previousTurnPlayer = getCurrentlyPlaying();
+        playerTimers.entrySet().stream()
+            .filter(e -> !e.getValue().isPaused())
+                .findFirst()
+                    .ifPresent(e -> previousTurnPlayer = e.getKey());
         playerTimers.forEach((player, timer) -> timer.stop());
     }
+
+    /**
+     * Pauses the timers of this clock and cancels their pending flag falls on the shared timer wheel.
+     */
+    public void dispose(){
+        playerTimers.values().forEach(SimpleTimer::cancel);
+    }
 }
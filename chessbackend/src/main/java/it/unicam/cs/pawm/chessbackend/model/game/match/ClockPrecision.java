@@ -0,0 +1,31 @@
+package it.unicam.cs.pawm.chessbackend.model.game.match;
+
+/**
+ * The precision with which a timer charges the time consumed by a player.
+ */
+public enum ClockPrecision {
+    /**
+     * Only the whole seconds consumed are charged, as a clock ticking every second.
+     */
+    SECONDS(1000),
+    /**
+     * The time consumed is charged to the millisecond.
+     */
+    MILLISECONDS(1);
+
+    private final long unit;
+
+    ClockPrecision(long unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Rounds the given amount of consumed time down to the precision.
+     *
+     * @param millis the consumed time, in milliseconds.
+     * @return the consumed time charged with this precision.
+     */
+    public long charge(long millis){
+        return millis / unit * unit;
+    }
+}
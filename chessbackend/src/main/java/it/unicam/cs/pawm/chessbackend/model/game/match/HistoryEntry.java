@@ -0,0 +1,61 @@
+package it.unicam.cs.pawm.chessbackend.model.game.match;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEffect;
+
+import java.util.Optional;
+
+/**
+ * A move in the history of a match, with its effect and its ply: the number of moves made by both
+ * players when the move was applied, starting from 1. The entry also records the Zobrist key of the
+ * position reached with the move, the time left to each player and the ending of the match right
+ * after the move, before the premoves that may follow it are applied.
+ */
+public class HistoryEntry {
+    private final int ply;
+    private final Move move;
+    private final MoveEffect effect;
+    private final long key;
+    private final long whiteTime;
+    private final long blackTime;
+    private final MatchEndingResult ending;
+
+    public HistoryEntry(int ply, Move move, MoveEffect effect, long key, long whiteTime, long blackTime,
+                        MatchEndingResult ending) {
+        this.ply = ply;
+        this.move = move;
+        this.effect = effect;
+        this.key = key;
+        this.whiteTime = whiteTime;
+        this.blackTime = blackTime;
+        this.ending = ending;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public Move getMove() {
+        return move;
+    }
+
+    public MoveEffect getEffect() {
+        return effect;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public long getWhiteTime() {
+        return whiteTime;
+    }
+
+    public long getBlackTime() {
+        return blackTime;
+    }
+
+    public Optional<MatchEndingResult> getEnding() {
+        return Optional.ofNullable(ending);
+    }
+}
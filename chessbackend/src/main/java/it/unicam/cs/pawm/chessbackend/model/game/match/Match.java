@@ -14,16 +14,38 @@ import java.util.*;
  *      - Stall: if one player has no legal moves to make but his king is not under check, the match ends
  *               and no one wins.
  *      - End time: if a player ends his time to make moves, the other player wins.
+ *
+ * A player can queue premoves during the turn of the opponent: they are applied, in order, as soon as
+ * the move of the opponent is applied, before the turn of the player starts waiting for a request. The
+ * first premove that turns out to be illegal discards the whole queue. The premoves are validated and
+ * applied while no timer is running, between the end of the turn of the opponent and the start of the
+ * next turn: they take no time from the clock of the player, and they give him no increment either.
+ *
+ * After every applied move the match publishes an immutable {@link MatchSnapshot} through a volatile
+ * reference: the snapshot can be read by any thread, while the match itself must be changed and read
+ * by one thread at a time.
  */
 public class Match {
+    private static final int MAX_PREMOVES = 8;
+
     private final int id;
     private final PlayerPair players;
     private MoveEffect lastMoveEffect;
     private final ChessClock clock;
     private final MatchHistory history;
     private final Evaluator moveEvaluator;
+    private final Map<Color, Deque<Premove>> premoves = new EnumMap<>(Color.class);
+    private volatile MatchSnapshot snapshot;
 
     public Match(int id, long timerAmount, PlayerPair players) {
+        this(id, players, new ChessClock(players, timerAmount));
+    }
+
+    public Match(int id, TimeControl timeControl, PlayerPair players) {
+        this(id, players, new ChessClock(players, timeControl));
+    }
+
+    private Match(int id, PlayerPair players, ChessClock clock) {
         this.id = id;
         this.players = players;
         this.moveEvaluator = new Evaluator(new Chessboard());
@@ -31,8 +53,15 @@ public class Match {
             players.getWhitePlayer().getPieces(),
             players.getBlackPlayer().getPieces()
         );
-        this.clock = new ChessClock(players, timerAmount);
-        this.history = new MatchHistory(players);
+        this.clock = clock;
+        this.history = new MatchHistory(players, getKey());
+        this.premoves.put(Color.WHITE, new ArrayDeque<>());
+        this.premoves.put(Color.BLACK, new ArrayDeque<>());
+        this.snapshot = MatchSnapshot.of(positionOf());
+    }
+
+    private Position positionOf(){
+        return moveEvaluator.getCalculator().getChessboard().getPosition();
     }
 
     public int getId() {
@@ -67,6 +96,34 @@ public class Match {
         return moveEvaluator;
     }
 
+    /**
+     * Returns the Zobrist key of the current position of the match.
+     *
+     * @return the key of the current position.
+     */
+    public long getKey(){
+        return positionOf().getKey();
+    }
+
+    /**
+     * Returns the snapshot of the match published after the last applied move. Unlike the other
+     * methods of the match, it can be called by any thread.
+     *
+     * @return the last snapshot of the match.
+     */
+    public MatchSnapshot getSnapshot(){
+        return snapshot;
+    }
+
+    /**
+     * Returns the color of the player that has to move in the current position.
+     *
+     * @return the color of the player that has to move.
+     */
+    public Color getSideToMove(){
+        return positionOf().getSideToMove();
+    }
+
     public void start(){
         clock.startFor(players.getWhitePlayer());
     }
@@ -75,25 +132,112 @@ public class Match {
         clock.switchPlayer();
     }
 
-    public void onMove(Move move){
+
+    /**
+     * Applies the move of the player of the current turn, followed by the premoves queued by the other
+     * player.
+     *
+     * @param move the move to apply.
+     * @return the effect of the move.
+     */
+    public MoveEffect onMove(Move move){
+        return onMove(move, moveEvaluator);
+    }
+
+    /**
+     * Applies the move of the player of the current turn validating it with the given evaluator,
+     * followed by the premoves queued by the other player, which are validated by the same evaluator.
+     * The evaluator must perform the move on the board of this match if it is legal.
+     *
+     * @param move the move to apply.
+     * @param evaluator the evaluator of the moves.
+     * @return the effect of the move.
+     */
+    public MoveEffect onMove(Move move, MoveEvaluator evaluator){
         if (isEnded())
             throw new IllegalStateException("Match ended: cannot perform any more moves");
 
         if (!move.getPiece().getColor().equals(clock.getCurrentlyPlaying().getTeam()))
             throw new IllegalArgumentException("Cannot move other player pieces");
 
-        lastMoveEffect = moveEvaluator.evaluate(move);
+        MoveEffect effect = evaluator.evaluate(move);
+        if (effect.equals(MoveEffect.ILLEGAL)) {
+            lastMoveEffect = effect;
+            return effect;
+        }
+
+        apply(move, effect);
+        applyPremoves(evaluator);
+        if (lastMoveEffect.equals(MoveEffect.CHECKMATE) || lastMoveEffect.equals(MoveEffect.DRAW))
+            clock.stop();
+        else if (!isEnded())
+            clock.startFor(playerOf(getSideToMove()));
+        return effect;
+    }
+
+    private void apply(Move move, MoveEffect effect){
+        moveEvaluator.getCalculator().getChessboard().clearUndoStack();
+        lastMoveEffect = effect;
+        clock.endTurnOf(playerOf(move.getPiece().getColor()));
+        history.add(move, effect, getKey(),
+            clock.getRemainingTime(players.getWhitePlayer()),
+            clock.getRemainingTime(players.getBlackPlayer()),
+            getEnding().orElse(null));
+        snapshot = snapshot.next(positionOf(), history);
+    }
 
-        if (!lastMoveEffect.equals(MoveEffect.ILLEGAL)){
-            history.add(move);
-            if (lastMoveEffect.equals(MoveEffect.CHECKMATE) || lastMoveEffect.equals(MoveEffect.DRAW)){
-                clock.stop();
-            } else {
-                switchTurn();
+    private Player playerOf(Color color){
+        return color.equals(Color.WHITE) ? players.getWhitePlayer() : players.getBlackPlayer();
+    }
+
+    /**
+     * Applies the premoves of the player who has to move, until his queue is empty, one of
+     * his premoves is illegal or the match ends. No timer runs while the premoves are applied.
+     */
+    private void applyPremoves(MoveEvaluator evaluator){
+        while (!isEnded()) {
+            Deque<Premove> queue = premoves.get(getSideToMove());
+            Premove premove = queue.poll();
+            if (premove == null)
+                return;
+
+            Optional<Move> move = premove.toMove();
+            MoveEffect effect = move.map(evaluator::evaluate).orElse(MoveEffect.ILLEGAL);
+            if (effect.equals(MoveEffect.ILLEGAL)) {
+                queue.clear();
+                return;
             }
+            apply(move.get(), effect);
         }
     }
 
+    /**
+     * Queues a premove for a player waiting for his turn.
+     *
+     * @param premove the premove.
+     * @return the number of premoves queued by the player.
+     */
+    public int addPremove(Premove premove){
+        if (isEnded())
+            throw new IllegalStateException("Match ended: cannot perform any more moves");
+        if (premove.getColor().equals(getSideToMove()))
+            throw new IllegalStateException("Cannot premove during the own turn");
+
+        Deque<Premove> queue = premoves.get(premove.getColor());
+        if (queue.size() >= MAX_PREMOVES)
+            throw new IllegalStateException("Too many premoves queued");
+        queue.add(premove);
+        return queue.size();
+    }
+
+    public List<Premove> getPremoves(Color color){
+        return List.copyOf(premoves.get(color));
+    }
+
+    public void clearPremoves(Color color){
+        premoves.get(color).clear();
+    }
+
     public boolean isEnded(){
         return getEnding().isPresent();
     }
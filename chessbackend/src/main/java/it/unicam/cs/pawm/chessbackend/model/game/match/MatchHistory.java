@@ -2,21 +2,43 @@ package it.unicam.cs.pawm.chessbackend.model.game.match;
 
 import it.unicam.cs.pawm.chessbackend.model.game.Color;
 import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEffect;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Represent the sequence of all the moves made by the players during a chess match.
+ *
+ * Besides the moves of each player, the history keeps all the moves in the order in which they were
+ * applied, so that a client can ask only for the moves made after the last one it knows.
+ *
+ * The history also records the Zobrist key of the position reached at every ply, starting from the
+ * initial one, and counts how many times each position occurred, so that a repetition is detected in
+ * constant time.
+ *
+ * The entries are kept in an append-only array: the entries already added are never overwritten, so
+ * the views of the history returned by {@link #view()} can be shared by the snapshots of the match
+ * without copying them.
  */
 public class MatchHistory {
+    private static final int INITIAL_CAPACITY = 64;
+
     private final Map<Player, List<Move>> history = new HashMap<>();
+    private HistoryEntry[] entries = new HistoryEntry[INITIAL_CAPACITY];
+    private int size;
+    private final Map<Long, Integer> occurrences = new HashMap<>();
+    private final long initialKey;
 
-    public MatchHistory(PlayerPair players) {
+    public MatchHistory(PlayerPair players, long initialKey) {
         history.put(players.getWhitePlayer(), new ArrayList<>());
         history.put(players.getBlackPlayer(), new ArrayList<>());
+        this.initialKey = initialKey;
+        occurrences.put(initialKey, 1);
     }
 
     public Map<Player, List<Move>> getHistory() {
@@ -27,7 +49,77 @@ public class MatchHistory {
         return history.get(player);
     }
 
-    public void add(Move move){
+    /**
+     * Returns the number of moves made by both players.
+     *
+     * @return the number of moves made by both players.
+     */
+    public int size(){
+        return size;
+    }
+
+    /**
+     * Returns the moves applied after the given ply, in the order in which they were applied.
+     *
+     * @param ply the number of moves already known.
+     * @return the moves applied after the given ply.
+     */
+    public List<HistoryEntry> getEntriesSince(int ply){
+        if (ply < 0 || ply > size)
+            throw new IllegalArgumentException("Invalid ply: " + ply);
+        return List.copyOf(view().subList(ply, size));
+    }
+
+    /**
+     * Returns an unmodifiable view of the moves applied so far, which does not see the moves added
+     * later. Taking the view does not copy the moves.
+     *
+     * @return the moves applied so far.
+     */
+    List<HistoryEntry> view(){
+        return Collections.unmodifiableList(Arrays.asList(entries).subList(0, size));
+    }
+
+    /**
+     * Returns the Zobrist key of the position reached after the given ply, where the ply 0 is the
+     * initial position.
+     *
+     * @param ply the number of moves made.
+     * @return the key of the position reached after the given ply.
+     */
+    public long getKey(int ply){
+        if (ply < 0 || ply > size)
+            throw new IllegalArgumentException("Invalid ply: " + ply);
+        return ply == 0 ? initialKey : entries[ply - 1].getKey();
+    }
+
+    /**
+     * Returns how many times the position with the given Zobrist key occurred during the match.
+     *
+     * @param key the key of the position.
+     * @return the number of occurrences of the position.
+     */
+    public int getOccurrences(long key){
+        return occurrences.getOrDefault(key, 0);
+    }
+
+    /**
+     * Adds a move to the history together with the Zobrist key of the position it reached and the
+     * state of the match right after it.
+     *
+     * @param move the move.
+     * @param effect the effect of the move.
+     * @param key the key of the position reached with the move.
+     * @param whiteTime the time left to the white player after the move, in milliseconds.
+     * @param blackTime the time left to the black player after the move, in milliseconds.
+     * @param ending the ending of the match caused by the move, or null if the match goes on.
+     */
+    public void add(Move move, MoveEffect effect, long key, long whiteTime, long blackTime, MatchEndingResult ending){
+        if (size == entries.length)
+            entries = Arrays.copyOf(entries, size * 2);
+        entries[size] = new HistoryEntry(size + 1, move, effect, key, whiteTime, blackTime, ending);
+        size++;
+        occurrences.merge(key, 1, Integer::sum);
         if (move.getPiece().getColor().equals(Color.WHITE)){
             addForTeam(move, Color.WHITE);
         } else
@@ -42,5 +134,9 @@ public class MatchHistory {
 
     public void reset(){
         history.clear();
+        entries = new HistoryEntry[INITIAL_CAPACITY];
+        size = 0;
+        occurrences.clear();
+        occurrences.put(initialKey, 1);
     }
 }
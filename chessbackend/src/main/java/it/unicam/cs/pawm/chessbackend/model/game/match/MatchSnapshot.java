@@ -0,0 +1,93 @@
+package it.unicam.cs.pawm.chessbackend.model.game.match;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import it.unicam.cs.pawm.chessbackend.model.game.Piece;
+import it.unicam.cs.pawm.chessbackend.model.game.Position;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * An immutable view of a match between two moves: the pieces on every square, the side to move, the
+ * version and Zobrist key of the position and the moves applied so far.
+ *
+ * A match publishes a new snapshot after every applied move, so the readers of the match never see a
+ * move applied halfway and never wait for the moves being applied. The squares are copied from the
+ * bitboards at every move, while the moves are a view of the append-only entries of the
+ * {@link MatchHistory}, limited to the moves applied when the snapshot was taken, so publishing a
+ * snapshot does not copy the history. The pieces are shared with the chessboard, but only their id,
+ * type and color, which never change, are meant to be read from a snapshot.
+ */
+public class MatchSnapshot {
+    private final long version;
+    private final long key;
+    private final Color sideToMove;
+    private final Piece[] squares;
+    private final List<HistoryEntry> entries;
+
+    private MatchSnapshot(Position position, List<HistoryEntry> entries) {
+        this.version = position.getVersion();
+        this.key = position.getKey();
+        this.sideToMove = position.getSideToMove();
+        this.squares = new Piece[64];
+        for (Color color : Color.values())
+            for (int i = 0; i < position.getPieceCount(color); i++)
+                squares[position.getPieceSquare(color, i)] = position.getPiece(color, i);
+        this.entries = entries;
+    }
+
+    static MatchSnapshot of(Position position){
+        return new MatchSnapshot(position, List.of());
+    }
+
+    /**
+     * Returns the snapshot following this one, with the given position and the moves applied so far.
+     */
+    MatchSnapshot next(Position position, MatchHistory history){
+        return new MatchSnapshot(position, history.view());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Returns the number of moves applied when this snapshot was taken.
+     *
+     * @return the ply of this snapshot.
+     */
+    public int getPly() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the piece on the square with the given index (see
+     * {@link it.unicam.cs.pawm.chessbackend.model.game.Bitboards}), if any.
+     *
+     * @param square the index of the square.
+     * @return the piece on the square, or an empty optional if the square is empty.
+     */
+    public Optional<Piece> getPiece(int square){
+        return Optional.ofNullable(squares[square]);
+    }
+
+    /**
+     * Returns the moves applied after the given ply, in the order in which they were applied.
+     *
+     * @param ply the number of moves already known.
+     * @return the moves applied after the given ply.
+     */
+    public List<HistoryEntry> getEntriesSince(int ply){
+        if (ply < 0 || ply > entries.size())
+            throw new IllegalArgumentException("Invalid ply: " + ply);
+        return entries.subList(ply, entries.size());
+    }
+}
@@ -0,0 +1,49 @@
+package it.unicam.cs.pawm.chessbackend.model.game.match;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.Square;
+
+import java.util.Optional;
+
+/**
+ * A move submitted by a player before his turn, to be applied as soon as his turn starts.
+ *
+ * A premove only records the squares of the move: the piece to move is the one found on the origin
+ * square when the premove is applied, which may not be there yet when the premove is submitted.
+ */
+public class Premove {
+    private final Color color;
+    private final Square origin;
+    private final Square target;
+
+    public Premove(Color color, Square origin, Square target) {
+        this.color = color;
+        this.origin = origin;
+        this.target = target;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    public Square getOrigin() {
+        return origin;
+    }
+
+    public Square getTarget() {
+        return target;
+    }
+
+    /**
+     * Creates the move of this premove on the current board.
+     *
+     * @return the move, or an empty optional if the origin square is not occupied by a piece of the
+     *         player.
+     */
+    public Optional<Move> toMove(){
+        return origin.getPiece()
+            .filter(piece -> piece.getColor().equals(color))
+            .map(piece -> new Move(origin, target));
+    }
+}
@@ -1,7 +1,8 @@
 package it.unicam.cs.pawm.chessbackend.model.game.match;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A chess timer is associated to a player during a chess match.
@@ -10,63 +11,179 @@ import java.util.TimerTask;
  * resume. Every time the player makes a move, the timer is paused and the player's turn ends.
  *
  * If a timer ends, the player associated to that timer lost the game because of time.
+ *
+ * The timer does not tick: it records with {@link System#nanoTime()} when the turn started and computes
+ * the time left when it is read, charging the consumed time with its {@link ClockPrecision}. The
+ * {@link TimeControl} of the timer can give an increment, added when the player ends a turn, and a
+ * delay, which is not charged at the beginning of every turn. The only task scheduled on the shared
+ * {@link TimerWheel} is the flag fall, at the instant in which the time left reaches zero, and it is
+ * cancelled as soon as the timer is paused. Since the wheel can notify the flag fall up to a tick late,
+ * {@link #checkFlagFall()} notifies it as soon as the time left is read as zero, and the wheel only
+ * acts as a backstop when nobody reads the timer: the listeners run once, on whichever comes first.
  */
 public class SimpleTimer {
-    private long timeLeft;
-
+    private final TimeControl timeControl;
+    private final ClockPrecision precision;
+    private final TimerWheel wheel;
+    private final List<Runnable> expirationListeners = new ArrayList<>();
+
+    private long budget;
+    private long consumed;
+    private long startedAt;
     private boolean paused;
-
-    private final Timer timer;
+    private TimerWheel.Timeout flagFall;
 
     public SimpleTimer(long timeLeft) {
-        this.timeLeft = timeLeft;
-        this.timer = new Timer();
+        this(timeLeft, TimerWheel.shared());
+    }
+
+    public SimpleTimer(long timeLeft, TimerWheel wheel) {
+        this(TimeControl.of(timeLeft), ClockPrecision.SECONDS, wheel);
+    }
+
+    public SimpleTimer(TimeControl timeControl, ClockPrecision precision) {
+        this(timeControl, precision, TimerWheel.shared());
+    }
+
+    public SimpleTimer(TimeControl timeControl, ClockPrecision precision, TimerWheel wheel) {
+        this.timeControl = timeControl;
+        this.precision = precision;
+        this.wheel = wheel;
+        this.budget = TimeUnit.MILLISECONDS.toNanos(timeControl.getBaseTime());
         this.paused = true;
     }
 
-    public long getTimeLeft() {
-        return timeLeft;
+    public TimeControl getTimeControl() {
+        return timeControl;
+    }
+
+    public ClockPrecision getPrecision() {
+        return precision;
+    }
+
+    public synchronized long getTimeLeft() {
+        long elapsed = consumed + runningNanos();
+        if (elapsed >= budget)
+            return 0;
+        return TimeUnit.NANOSECONDS.toMillis(budget) - precision.charge(TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    public synchronized void setTimeLeft(long timeLeft) {
+        this.budget = TimeUnit.MILLISECONDS.toNanos(timeLeft);
+        this.consumed = 0;
+        if (!paused) {
+            startedAt = System.nanoTime();
+            scheduleFlagFall();
+        }
     }
 
-    public void setTimeLeft(long timeLeft) {
-        this.timeLeft = timeLeft;
+    /**
+     * Returns the time consumed in the current turn, without the delay.
+     */
+    private long runningNanos(){
+        if (paused)
+            return 0;
+        long delay = TimeUnit.MILLISECONDS.toNanos(timeControl.getDelay());
+        return Math.max(System.nanoTime() - startedAt - delay, 0);
     }
 
-    public void start(){
+    public synchronized void start(){
         if (isDone())
             throw new IllegalStateException("Timer expired, could not be started");
+        if (!paused)
+            return;
 
         paused = false;
-        TimerTask decreaseOneSec = new TimerTask() {
-            @Override
-            public void run() {
-                if (getTimeLeft() >= 1000 && !isDone())
-                    setTimeLeft(timeLeft -= 1000);
-                else if (isPaused()){
+        startedAt = System.nanoTime();
+        scheduleFlagFall();
+    }
+
+    private void scheduleFlagFall(){
+        cancelFlagFall();
+        long delay = TimeUnit.MILLISECONDS.toNanos(timeControl.getDelay());
+        flagFall = wheel.schedule(() -> expire(true), delay + budget - consumed - runningNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private void cancelFlagFall(){
+        if (flagFall != null)
+            flagFall.cancel();
+        flagFall = null;
+    }
+
+    /**
+     * Notifies the flag fall if the timer is running and its time is over, without waiting for the
+     * {@link TimerWheel}. The listeners run on the calling thread, and only if the flag fall has not
+     * been notified yet.
+     */
+    public void checkFlagFall(){
+        expire(false);
+    }
+
+    private void expire(boolean due){
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (paused || flagFall == null)
+                return;
+            if (!due && consumed + runningNanos() < budget)
+                return;
+            cancelFlagFall();
+            consumed = budget;
+            startedAt = System.nanoTime();
+            listeners = List.copyOf(expirationListeners);
+        }
+        listeners.forEach(Runnable::run);
+    }
 
-                } else {
-                    timer.cancel();
-                }
-            }
-        };
-        timer.schedule(decreaseOneSec, 0,  1000);
+    /**
+     * Registers a task to run when the time of this timer expires while it is running. The task runs
+     * on the thread of the {@link TimerWheel} or on the one that first reads the expired timer through
+     * {@link #checkFlagFall()}, so it must be short.
+     *
+     * @param listener the task to run when the time expires.
+     */
+    public synchronized void onExpiration(Runnable listener){
+        expirationListeners.add(listener);
     }
 
-    public boolean isDone() {
-        return timeLeft == 0;
+    public synchronized boolean isDone() {
+        return getTimeLeft() == 0;
     }
 
-    public boolean isPaused() {
+    public synchronized boolean isPaused() {
         return paused;
     }
 
-    public void pause(){
-        paused = true;
+    /**
+     * Pauses the timer at the end of the turn of the player: if the player still has time, the
+     * increment of the time control is added to his time.
+     */
+    public synchronized void pause(){
+        if (paused)
+            return;
+        suspend();
+        if (!isDone())
+            budget += TimeUnit.MILLISECONDS.toNanos(timeControl.getIncrement());
     }
 
-    public void stop(){
-        timeLeft = 0;
+    private void suspend(){
+        consumed += runningNanos();
+        paused = true;
+        cancelFlagFall();
     }
 
+    public synchronized void stop(){
+        consumed = budget;
+        if (!paused)
+            startedAt = System.nanoTime();
+        cancelFlagFall();
+    }
 
+    /**
+     * Cancels the flag fall of this timer and pauses it without giving any increment, so that it no
+     * longer holds any task on the shared {@link TimerWheel}.
+     */
+    public synchronized void cancel(){
+        if (!paused)
+            suspend();
+    }
 }
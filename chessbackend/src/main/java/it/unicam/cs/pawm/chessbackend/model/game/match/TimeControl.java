@@ -0,0 +1,45 @@
+package it.unicam.cs.pawm.chessbackend.model.game.match;
+
+/**
+ * The time control of a chess match: the base time given to each player, the increment added to the
+ * time of a player after each of his moves and the delay that passes at the beginning of each turn
+ * before the time of the player starts to decrease. All the amounts are in milliseconds, and the base
+ * time must be positive, since a match cannot start with a player already out of time.
+ */
+public class TimeControl {
+    private final long baseTime;
+    private final long increment;
+    private final long delay;
+
+    public TimeControl(long baseTime, long increment, long delay) {
+        if (baseTime <= 0)
+            throw new IllegalArgumentException("The base time must be positive.");
+        if (increment < 0 || delay < 0)
+            throw new IllegalArgumentException("Time control amounts cannot be negative.");
+        this.baseTime = baseTime;
+        this.increment = increment;
+        this.delay = delay;
+    }
+
+    /**
+     * Creates a time control with no increment and no delay.
+     *
+     * @param baseTime the base time of each player, in milliseconds.
+     * @return the time control.
+     */
+    public static TimeControl of(long baseTime){
+        return new TimeControl(baseTime, 0, 0);
+    }
+
+    public long getBaseTime() {
+        return baseTime;
+    }
+
+    public long getIncrement() {
+        return increment;
+    }
+
+    public long getDelay() {
+        return delay;
+    }
+}
@@ -0,0 +1,155 @@
+package it.unicam.cs.pawm.chessbackend.model.game.match;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed timing wheel: a single thread that runs the tasks scheduled by all the chess clocks when
+ * their deadline expires.
+ *
+ * The wheel is a circular array of buckets, each one covering a tick of time. A task is placed in the
+ * bucket of the tick that contains its deadline, together with the number of whole turns of the wheel
+ * that have to pass before it expires; the bucket of a tick is visited when the tick ends, so after
+ * the deadlines of all its tasks. Scheduling and cancelling a task cost constant time and do not wake
+ * the thread, so the cost of the wheel does not depend on the number of clocks that are running, but
+ * only on the deadlines that actually expire.
+ *
+ * The tasks are run on the thread of the wheel, so they must be short.
+ */
+public class TimerWheel {
+    private static final TimerWheel SHARED = new TimerWheel(100, TimeUnit.MILLISECONDS, 512);
+
+    private final long tickNanos;
+    private final List<List<Timeout>> buckets;
+    private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startTime;
+    private long tick;
+
+    public TimerWheel(long tickDuration, TimeUnit unit, int size) {
+        this.tickNanos = unit.toNanos(tickDuration);
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            buckets.add(new ArrayList<>());
+        this.startTime = System.nanoTime();
+        this.worker = new Thread(this::run, "chess-clock-wheel");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Returns the wheel shared by all the chess clocks, with ticks of 100 milliseconds.
+     *
+     * @return the shared wheel.
+     */
+    public static TimerWheel shared(){
+        return SHARED;
+    }
+
+    /**
+     * Schedules a task to run after the given delay. The task runs at the end of the tick that contains
+     * its deadline, so, besides the time the thread of the wheel takes to wake up, it is late by less
+     * than the duration of a tick.
+     *
+     * @param task the task to run.
+     * @param delay the delay.
+     * @param unit the unit of the delay.
+     * @return the handle to cancel the task.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit){
+        Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(Math.max(delay, 0)));
+        scheduled.add(timeout);
+        return timeout;
+    }
+
+    private void run(){
+        while (!Thread.currentThread().isInterrupted()) {
+            long deadline = startTime + (tick + 1) * tickNanos;
+            long sleep = deadline - System.nanoTime();
+            if (sleep > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            transferScheduled();
+            expire(buckets.get((int) (tick % buckets.size())));
+            tick++;
+        }
+    }
+
+    private void transferScheduled(){
+        Timeout timeout;
+        while ((timeout = scheduled.poll()) != null) {
+            if (timeout.isCancelled())
+                continue;
+            long ticks = Math.max((timeout.deadline - startTime) / tickNanos, tick);
+            timeout.rounds = (ticks - tick) / buckets.size();
+            buckets.get((int) (ticks % buckets.size())).add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket){
+        Iterator<Timeout> timeouts = bucket.iterator();
+        while (timeouts.hasNext()) {
+            Timeout timeout = timeouts.next();
+            if (timeout.isCancelled()) {
+                timeouts.remove();
+            } else if (timeout.rounds <= 0) {
+                timeouts.remove();
+                timeout.expire();
+            } else {
+                timeout.rounds--;
+            }
+        }
+    }
+
+    /**
+     * The handle of a task scheduled on the wheel.
+     */
+    public static class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long rounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the task, if it has not run yet.
+         *
+         * @return true if the task was cancelled, false if it already ran or was already cancelled.
+         */
+        public boolean cancel(){
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        public boolean isCancelled(){
+            return state.get() == CANCELLED;
+        }
+
+        private void expire(){
+            if (state.compareAndSet(PENDING, EXPIRED)) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    Thread.currentThread().getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), e);
+                }
+            }
+        }
+    }
+}
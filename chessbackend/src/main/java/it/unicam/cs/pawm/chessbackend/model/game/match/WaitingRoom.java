@@ -15,12 +15,12 @@ public class WaitingRoom {
         return waitingPlayers;
     }
 
-    public void addPlayer(Player player){
+    public synchronized void addPlayer(Player player){
         if(!waitingPlayers.contains(player))
             waitingPlayers.add(player);
     }
 
-    public Optional<PlayerPair> getPlayersForMatch(){
+    public synchronized Optional<PlayerPair> getPlayersForMatch(){
         Optional<PlayerPair> players = Optional.empty();
         if (waitingPlayers.size() >= 2){
             players = Optional.of(new PlayerPair(waitingPlayers.get(0), waitingPlayers.get(1)));
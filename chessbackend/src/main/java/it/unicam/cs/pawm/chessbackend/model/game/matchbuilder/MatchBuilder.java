@@ -1,7 +1,7 @@
 package it.unicam.cs.pawm.chessbackend.model.game.matchbuilder;
 
 import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
-import it.unicam.cs.pawm.chessbackend.model.game.match.PlayerPair;
+import it.unicam.cs.pawm.chessbackend.model.game.match.TimeControl;
 import it.unicam.cs.pawm.chessbackend.model.game.match.WaitingRoom;
 
 /**
@@ -15,4 +15,13 @@ public interface MatchBuilder {
      * @return the new Match created.
      */
     Match createMatch(WaitingRoom room);
+
+    /**
+     * Creates a match between two players with the given time control, measured in milliseconds.
+     *
+     * @param room the waiting room.
+     * @param timeControl the time control of the match.
+     * @return the new Match created.
+     */
+    Match createMatch(WaitingRoom room, TimeControl timeControl);
 }
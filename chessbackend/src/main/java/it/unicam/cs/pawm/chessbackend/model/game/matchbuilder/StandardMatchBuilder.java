@@ -2,18 +2,35 @@ package it.unicam.cs.pawm.chessbackend.model.game.matchbuilder;
 
 import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
 import it.unicam.cs.pawm.chessbackend.model.game.match.PlayerPair;
+import it.unicam.cs.pawm.chessbackend.model.game.match.TimeControl;
 import it.unicam.cs.pawm.chessbackend.model.game.match.WaitingRoom;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 public class StandardMatchBuilder implements MatchBuilder{
-    private static int lastId = 0;
+    private static final long DEFAULT_TIME = 60000;
+    private static final AtomicInteger lastId = new AtomicInteger();
+
+    /**
+     * Creates a match with the default clock: one minute per player, counted in seconds, with no
+     * increment and no delay.
+     */
     @Override
     public Match createMatch(WaitingRoom room) {
+        return createMatch(room, players -> new Match(lastId.getAndIncrement(), DEFAULT_TIME, players));
+    }
+
+    @Override
+    public Match createMatch(WaitingRoom room, TimeControl timeControl) {
+        return createMatch(room, players -> new Match(lastId.getAndIncrement(), timeControl, players));
+    }
+
+    private Match createMatch(WaitingRoom room, Function<PlayerPair, Match> factory) {
         Optional<PlayerPair> players = room.getPlayersForMatch();
         if (players.isPresent()){
-            return new Match(lastId++, 60000, players.get());
+            return factory.apply(players.get());
         } else
             throw new IllegalStateException("Unable to create match: waiting room has not enough players.");
     }
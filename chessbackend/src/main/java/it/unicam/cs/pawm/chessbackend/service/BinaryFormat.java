@@ -0,0 +1,108 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import it.unicam.cs.pawm.chessbackend.model.game.*;
+import it.unicam.cs.pawm.chessbackend.model.game.match.MatchEndingResult;
+import it.unicam.cs.pawm.chessbackend.model.game.match.MatchSnapshot;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The compact binary encoding of boards and moves, served to the clients asking for
+ * {@value #MEDIA_TYPE_VALUE} instead of JSON. All the numbers are big-endian.
+ *
+ * <ul>
+ *     <li>A board is 32 bytes with one nibble per square, in the order of the square indexes (see
+ *     {@link Bitboards}) and the lowest nibble first, followed by one byte with the side to move
+ *     (0 white, 1 black) and by the milliseconds left to the white and to the black player, as two
+ *     4 bytes integers. The nibble of an empty square is 0, the nibble of a piece is the ordinal of its
+ *     {@link PieceType} plus one, with the bit 3 (value 8) set for the black pieces.</li>
+ *     <li>A move is 2 bytes with the origin square in the lowest 6 bits and the target square in the
+ *     next 6 bits, followed by one byte with the ordinal of its {@link MoveEffect}.</li>
+ *     <li>An update is a move, or the 2 bytes {@value #FLAG_FALL} followed by the ordinal of the
+ *     {@link MatchEndingResult} when a player runs out of time, followed by the milliseconds left to
+ *     the two players as in a board.</li>
+ * </ul>
+ */
+public final class BinaryFormat {
+    public static final String MEDIA_TYPE_VALUE = "application/x-chess";
+    public static final int FLAG_FALL = 0xFFFF;
+
+    private static final int BLACK = 8;
+    private static final int SQUARES_LENGTH = 33;
+
+    private BinaryFormat() {
+    }
+
+    /**
+     * Encodes the squares and the side to move of a snapshot of a match, the part of a board that does
+     * not change until a move is applied.
+     *
+     * @param snapshot the snapshot.
+     * @return the 33 bytes with the squares and the side to move.
+     */
+    public static byte[] encodeSquares(MatchSnapshot snapshot){
+        byte[] squares = new byte[SQUARES_LENGTH];
+
+        for (int square = 0; square < 64; square++) {
+            Piece piece = snapshot.getPiece(square).orElse(null);
+            if (piece != null) {
+                int code = (piece.getPieceType().ordinal() + 1) | (piece.getColor().equals(Color.BLACK) ? BLACK : 0);
+                squares[square >>> 1] |= (byte) (code << ((square & 1) * 4));
+            }
+        }
+        squares[SQUARES_LENGTH - 1] = (byte) snapshot.getSideToMove().ordinal();
+        return squares;
+    }
+
+    /**
+     * Completes the encoded squares of a board with the time left to the players.
+     *
+     * @param squares the squares encoded with {@link #encodeSquares(MatchSnapshot)}.
+     * @param whiteTime the milliseconds left to the white player.
+     * @param blackTime the milliseconds left to the black player.
+     * @return the encoded board.
+     */
+    public static byte[] encodeBoard(byte[] squares, long whiteTime, long blackTime){
+        return ByteBuffer.allocate(squares.length + 8)
+            .put(squares)
+            .putInt((int) whiteTime)
+            .putInt((int) blackTime)
+            .array();
+    }
+
+    public static byte[] encodeMove(Square origin, Square target, MoveEffect effect){
+        return ByteBuffer.allocate(3)
+            .putShort((short) packSquares(origin.getRow(), origin.getColumn(), target.getRow(), target.getColumn()))
+            .put((byte) effect.ordinal())
+            .array();
+    }
+
+    /**
+     * Encodes an update of a match. A flag fall without an ending, reported before the match noticed
+     * that the time of the player is over, is encoded with the ending by time.
+     *
+     * @param update the update.
+     * @return the encoded update.
+     */
+    public static byte[] encodeUpdate(MatchUpdate update){
+        ByteBuffer buffer = ByteBuffer.allocate(11);
+        if (update.getOriginRow() == null) {
+            MatchEndingResult ending = update.getEnding() == null
+                ? MatchEndingResult.TIME
+                : MatchEndingResult.valueOf(update.getEnding());
+            buffer.putShort((short) FLAG_FALL)
+                .put((byte) ending.ordinal());
+        } else {
+            buffer.putShort((short) packSquares(update.getOriginRow(), update.getOriginColumn(),
+                    update.getTargetRow(), update.getTargetColumn()))
+                .put((byte) MoveEffect.valueOf(update.getEffect()).ordinal());
+        }
+        return buffer.putInt((int) update.getWhiteTime())
+            .putInt((int) update.getBlackTime())
+            .array();
+    }
+
+    private static int packSquares(int originRow, int originColumn, int targetRow, int targetColumn){
+        return Bitboards.square(originRow, originColumn) | Bitboards.square(targetRow, targetColumn) << 6;
+    }
+}
@@ -0,0 +1,65 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+/**
+ * The serialized board of a match at a given version of its position, in JSON and in the binary
+ * format, with the entity tag that identifies it in the HTTP caches and the ply of the match, so that
+ * a client knows which of the updates pushed to it are already on the board.
+ */
+public class BoardPayload {
+    private final long version;
+    private final int ply;
+    private final String etag;
+    private final byte[] json;
+    private final byte[] squares;
+
+    public BoardPayload(long version, int ply, String etag, byte[] json, byte[] squares) {
+        this.version = version;
+        this.ply = ply;
+        this.etag = etag;
+        this.json = json;
+        this.squares = squares;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * Returns the squares and the side to move encoded with {@link BinaryFormat}.
+     *
+     * @return the encoded squares and side to move.
+     */
+    public byte[] getSquares() {
+        return squares;
+    }
+
+    /**
+     * Tells if this payload is identified by one of the entity tags of an <code>If-None-Match</code>
+     * header.
+     *
+     * @param ifNoneMatch the value of the header, may be null.
+     * @return true if the client already has this payload, false otherwise.
+     */
+    public boolean matches(String ifNoneMatch){
+        if (ifNoneMatch == null)
+            return false;
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unicam.cs.pawm.chessbackend.model.game.Bitboards;
+import it.unicam.cs.pawm.chessbackend.model.game.Chessboard;
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import it.unicam.cs.pawm.chessbackend.model.game.Square;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.MatchSnapshot;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the last serialized board of every match, so that the board is serialized once per version
+ * of its position instead of once per request.
+ *
+ * The board is serialized from the last {@link MatchSnapshot} published by the match, so a payload is
+ * served, and serialized when needed, by any thread without going through the mailbox of the match and
+ * without ever reading a move applied halfway. The entity tags contain the instant in which the cache
+ * was created, so the tags given to the clients before a restart of the server are never mistaken for
+ * current ones.
+ */
+public class BoardPayloadCache {
+    private final ObjectMapper mapper;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Integer, BoardPayload> payloads = new ConcurrentHashMap<>();
+
+    public BoardPayloadCache(ObjectMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Returns the payload of the last snapshot of a match, serializing it if it is not cached. It can
+     * be called by any thread: if many threads serialize the same snapshot, the cache keeps the payload
+     * of the newest one.
+     *
+     * @param match the match.
+     * @return the payload of the current board.
+     */
+    public BoardPayload getOrSerialize(Match match){
+        MatchSnapshot snapshot = match.getSnapshot();
+        BoardPayload cached = payloads.get(match.getId());
+        if (cached != null && cached.getVersion() == snapshot.getVersion())
+            return cached;
+
+        try {
+            BoardPayload payload = new BoardPayload(
+                snapshot.getVersion(),
+                snapshot.getPly(),
+                "\"" + epoch + "-" + match.getId() + "-" + snapshot.getVersion() + "\"",
+                mapper.writeValueAsBytes(squaresOf(snapshot)),
+                BinaryFormat.encodeSquares(snapshot)
+            );
+            payloads.merge(match.getId(), payload, (old, current) -> old.getVersion() >= current.getVersion() ? old : current);
+            return payload;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize the board of match " + match.getId(), e);
+        }
+    }
+
+    /**
+     * Rebuilds the squares of a snapshot, with the same colors of the squares of a {@link Chessboard},
+     * so that the board is serialized in the same JSON as before.
+     */
+    private static Square[][] squaresOf(MatchSnapshot snapshot){
+        Square[][] squares = new Square[8][8];
+        for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 8; column++) {
+                Square square = new Square(row, column, (row + column) % 2 == 0 ? Color.BLACK : Color.WHITE);
+                snapshot.getPiece(Bitboards.square(row, column)).ifPresent(square::occupyWith);
+                squares[row][column] = square;
+            }
+        }
+        return squares;
+    }
+
+    public void evict(int matchId){
+        payloads.remove(matchId);
+    }
+}
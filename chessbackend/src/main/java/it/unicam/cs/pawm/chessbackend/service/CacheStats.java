@@ -0,0 +1,58 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+/**
+ * A snapshot of the counters of a cache, used to size it: the number of lookups answered by the cache
+ * and of the ones that had to compute their value, the number of entries evicted to stay within the
+ * maximum weight, and the current size and weight of the cache.
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final int size;
+    private final long weight;
+    private final long maxWeight;
+
+    public CacheStats(long hits, long misses, long evictions, int size, long weight, long maxWeight) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.weight = weight;
+        this.maxWeight = maxWeight;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Returns the fraction of the lookups answered by the cache, or 0 if there were no lookups.
+     *
+     * @return the hit rate of the cache.
+     */
+    public double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,66 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Evaluator;
+import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEffect;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEvaluator;
+import it.unicam.cs.pawm.chessbackend.model.game.PrecomputedMoves;
+
+import java.util.Optional;
+
+/**
+ * Evaluates the moves of a match with the legal moves of the shared table of a {@link LegalMovesCache}.
+ *
+ * If the effects of the moves were precomputed for the current position, the move is validated and
+ * its effect is taken with a lookup of the precomputed effects, without reading the shared table.
+ * Otherwise the move is validated with a lookup of the legal moves of the current position, which are
+ * computed and added to the table if no match reached the position recently, so that the next matches
+ * reaching it validate their moves with a hit. The move is then performed without analyzing the
+ * position again, and its effect is taken from the status of the resulting position, which is
+ * analyzed only if it is not in the table too.
+ */
+class CachedMoveEvaluator implements MoveEvaluator {
+    private final LegalMovesCache cache;
+    private final Evaluator evaluator;
+    private final Optional<PrecomputedMoves> precomputed;
+
+    CachedMoveEvaluator(LegalMovesCache cache, Evaluator evaluator, Optional<PrecomputedMoves> precomputed) {
+        this.cache = cache;
+        this.evaluator = evaluator;
+        this.precomputed = precomputed;
+    }
+
+    @Override
+    public MoveEffect evaluate(Move move) {
+        long key = currentKey();
+        Optional<PrecomputedMoves> current = precomputed.filter(moves -> moves.getKey() == key);
+        if (current.isPresent()) {
+            MoveEffect effect = current.get().getEffect(move);
+            if (!effect.equals(MoveEffect.ILLEGAL))
+                evaluator.perform(move);
+            return effect;
+        }
+
+        LegalMoves before = cache.getOrCompute(evaluator.getCalculator());
+        if (!before.isLegal(move))
+            return MoveEffect.ILLEGAL;
+
+        boolean capture = evaluator.perform(move);
+        return cache.find(currentKey())
+            .map(after -> effectOf(after.getStatus(), capture))
+            .orElseGet(() -> evaluator.effectOf(move, capture));
+    }
+
+    private long currentKey(){
+        return evaluator.getCalculator().getChessboard().getPosition().getKey();
+    }
+
+    private static MoveEffect effectOf(PositionStatus status, boolean capture){
+        return switch (status) {
+            case CHECKMATE -> MoveEffect.CHECKMATE;
+            case STALEMATE -> MoveEffect.DRAW;
+            case CHECK -> MoveEffect.CHECK;
+            case PLAYING -> capture ? MoveEffect.CAPTURE : MoveEffect.MOVE;
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.MatchSnapshot;
+
+import java.util.List;
+
+/**
+ * The moves of a match applied after a ply known by a client, together with the current ply of the
+ * match. A client that applies the moves in order reaches the current position without downloading
+ * the whole board.
+ */
+public class HistoryDelta {
+    private final int ply;
+    private final List<MoveRecord> moves;
+
+    private HistoryDelta(int ply, List<MoveRecord> moves) {
+        this.ply = ply;
+        this.moves = moves;
+    }
+
+    /**
+     * Collects the moves of a match applied after the given ply, reading its last snapshot.
+     *
+     * @param match the match.
+     * @param since the last ply known by the client.
+     * @return the moves applied after the given ply.
+     * @throws IllegalArgumentException if the given ply is not part of the history of the match.
+     */
+    public static HistoryDelta since(Match match, int since){
+        MatchSnapshot snapshot = match.getSnapshot();
+        List<MoveRecord> moves = snapshot.getEntriesSince(since).stream()
+            .map(MoveRecord::new)
+            .toList();
+        return new HistoryDelta(snapshot.getPly(), moves);
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public List<MoveRecord> getMoves() {
+        return moves;
+    }
+}
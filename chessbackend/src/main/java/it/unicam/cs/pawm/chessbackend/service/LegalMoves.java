@@ -0,0 +1,120 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Bitboards;
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveBuffer;
+import it.unicam.cs.pawm.chessbackend.model.game.PackedMove;
+import it.unicam.cs.pawm.chessbackend.model.game.Position;
+import it.unicam.cs.pawm.chessbackend.model.game.TargetsCalculator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The legal moves of all the pieces on a board and the status of the side to move, for the position
+ * with a given Zobrist key.
+ *
+ * The targets of every piece are kept as a bitboard indexed by the square of the piece, so the targets
+ * of a square and the moves of the side to move are read without touching the board again. The legal
+ * moves are immutable and only depend on the position, so they are shared by all the matches that
+ * reach it.
+ */
+public class LegalMoves {
+    private static final int BASE_WEIGHT = 640;
+    private static final int MOVE_WEIGHT = 56;
+
+    private final long key;
+    private final Color sideToMove;
+    private final PositionStatus status;
+    private final long[] targets = new long[64];
+    private final List<String> moves = new ArrayList<>();
+
+    LegalMoves(TargetsCalculator calculator) {
+        Position position = calculator.getChessboard().getPosition();
+        this.key = position.getKey();
+        this.sideToMove = position.getSideToMove();
+
+        MoveBuffer buffer = new MoveBuffer();
+        for (Color color : Color.values()) {
+            calculator.generateLegalMoves(color, buffer);
+            for (int i = 0; i < buffer.size(); i++) {
+                int move = buffer.get(i);
+                targets[PackedMove.getOrigin(move)] |= Bitboards.bit(PackedMove.getTarget(move));
+                if (color.equals(sideToMove))
+                    moves.add(Bitboards.name(PackedMove.getOrigin(move)) + Bitboards.name(PackedMove.getTarget(move)));
+            }
+        }
+        this.status = statusOf(calculator.isCheck(sideToMove), moves.isEmpty());
+    }
+
+    private static PositionStatus statusOf(boolean check, boolean noMoves){
+        if (noMoves)
+            return check ? PositionStatus.CHECKMATE : PositionStatus.STALEMATE;
+        return check ? PositionStatus.CHECK : PositionStatus.PLAYING;
+    }
+
+    public long getKey() {
+        return key;
+    }
+
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    public PositionStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns an estimate of the memory taken by these legal moves, in bytes.
+     *
+     * @return the weight of these legal moves.
+     */
+    int getWeight() {
+        return BASE_WEIGHT + MOVE_WEIGHT * moves.size();
+    }
+
+    /**
+     * Tells if a move can be played by the side to move of this position.
+     *
+     * @param move the move.
+     * @return true if the move is legal.
+     */
+    public boolean isLegal(Move move){
+        if (status.equals(PositionStatus.CHECKMATE) || status.equals(PositionStatus.STALEMATE))
+            return false;
+        if (!move.getPiece().getColor().equals(sideToMove))
+            return false;
+        int origin = Bitboards.square(move.getOrigin().getRow(), move.getOrigin().getColumn());
+        int target = Bitboards.square(move.getTarget().getRow(), move.getTarget().getColumn());
+        return Bitboards.contains(targets[origin], target);
+    }
+
+    /**
+     * Returns the squares that the piece on the given square can reach, in algebraic notation.
+     *
+     * @param row the row of the square.
+     * @param column the column of the square.
+     * @return the targets of the piece on the square, empty if the square is empty.
+     */
+    public List<String> getTargets(int row, int column){
+        List<String> names = new ArrayList<>();
+        long mask = targets[Bitboards.square(row, column)];
+        while (mask != 0) {
+            names.add(Bitboards.name(Bitboards.first(mask)));
+            mask &= mask - 1;
+        }
+        return names;
+    }
+
+    /**
+     * Returns the legal moves of the side to move, in coordinate notation.
+     *
+     * @return the legal moves of the side to move.
+     */
+    public List<String> getMoves(){
+        return Collections.unmodifiableList(moves);
+    }
+}
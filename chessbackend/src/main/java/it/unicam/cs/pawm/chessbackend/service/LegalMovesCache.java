@@ -0,0 +1,199 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEvaluator;
+import it.unicam.cs.pawm.chessbackend.model.game.Position;
+import it.unicam.cs.pawm.chessbackend.model.game.PrecomputedMoves;
+import it.unicam.cs.pawm.chessbackend.model.game.TargetsCalculator;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.MatchSnapshot;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the legal moves of the positions reached by the matches, shared by all the matches and keyed by
+ * the Zobrist key of the position, so that the positions played in many matches (e.g. the openings)
+ * are analyzed only once.
+ *
+ * Besides the shared table, the cache remembers the legal moves of the last position of every match
+ * with the version of its board. The legal moves of the last {@link MatchSnapshot} of a match, either
+ * remembered for the match or found in the shared table with the key of the snapshot, can be served by
+ * any thread, while new legal moves are computed by the mailbox of the match. The table is filled both
+ * by the requests for the legal moves and by the validation of the moves (see
+ * {@link #evaluatorFor(Match, Optional)}), so the matches playing the same opening validate their moves
+ * with hits.
+ *
+ * The shared table is bounded by the total weight of its entries (see {@link LegalMoves#getWeight()}).
+ * When the bound is exceeded the entries are evicted in insertion order, but an entry that was read
+ * since it was inserted or last examined gets a second chance and is moved to the end of the queue.
+ */
+public class LegalMovesCache {
+    public static final long DEFAULT_MAX_WEIGHT = 64L * 1024 * 1024;
+
+    private final long maxWeight;
+    private final Map<Integer, Current> current = new ConcurrentHashMap<>();
+    private final Map<Long, Entry> shared = new ConcurrentHashMap<>();
+    private final Queue<Long> evictionQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong weight = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public LegalMovesCache() {
+        this(DEFAULT_MAX_WEIGHT);
+    }
+
+    public LegalMovesCache(long maxWeight) {
+        if (maxWeight <= 0)
+            throw new IllegalArgumentException("The maximum weight must be positive");
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Returns the cached legal moves of the last snapshot of a match, if they are cached.
+     *
+     * @param match the match.
+     * @return the legal moves of the current position, or an empty optional if they are not cached.
+     */
+    public Optional<LegalMoves> getIfCurrent(Match match){
+        MatchSnapshot snapshot = match.getSnapshot();
+        Current moves = current.get(match.getId());
+        if (moves != null && moves.version == snapshot.getVersion())
+            return Optional.of(moves.legalMoves);
+
+        Optional<LegalMoves> shared = find(snapshot.getKey());
+        shared.ifPresent(legalMoves -> current.put(match.getId(), new Current(snapshot.getVersion(), legalMoves)));
+        return shared;
+    }
+
+    /**
+     * Returns the legal moves of the position with the given Zobrist key from the shared table, if
+     * some match reached the position recently.
+     *
+     * @param key the key of the position.
+     * @return the legal moves of the position, or an empty optional if they are not in the table.
+     */
+    public Optional<LegalMoves> find(long key){
+        Entry entry = shared.get(key);
+        if (entry == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        entry.referenced = true;
+        return Optional.of(entry.legalMoves);
+    }
+
+    /**
+     * Returns an evaluator of the moves of a match that validates the moves with the legal moves in the
+     * shared table, adding the positions not in the table. The effects of the moves are taken from the
+     * given precomputed effects, if they were computed for the position of the move. It must be used by
+     * the mailbox of the match.
+     *
+     * @param match the match.
+     * @param precomputed the effects precomputed for the current position, if any.
+     * @return the evaluator of the moves of the match.
+     */
+    public MoveEvaluator evaluatorFor(Match match, Optional<PrecomputedMoves> precomputed){
+        return new CachedMoveEvaluator(this, match.getMoveEvaluator(), precomputed);
+    }
+
+    /**
+     * Returns the legal moves of the current position of a match, taking them from the shared table or
+     * computing them if no match reached the position recently. It must be called by the mailbox of the
+     * match.
+     *
+     * @param match the match.
+     * @return the legal moves of the current position.
+     */
+    public LegalMoves getOrCompute(Match match){
+        Optional<LegalMoves> cached = getIfCurrent(match);
+        if (cached.isPresent())
+            return cached.get();
+
+        TargetsCalculator calculator = match.getMoveEvaluator().getCalculator();
+        Position position = calculator.getChessboard().getPosition();
+        LegalMoves moves = compute(position.getKey(), calculator);
+        current.put(match.getId(), new Current(position.getVersion(), moves));
+        return moves;
+    }
+
+    /**
+     * Returns the legal moves of the position on the board of the given calculator, taking them from
+     * the shared table or computing and adding them if no match reached the position recently.
+     *
+     * @param calculator the calculator of the board.
+     * @return the legal moves of the position.
+     */
+    LegalMoves getOrCompute(TargetsCalculator calculator){
+        long key = calculator.getChessboard().getPosition().getKey();
+        return find(key).orElseGet(() -> compute(key, calculator));
+    }
+
+    private LegalMoves compute(long key, TargetsCalculator calculator){
+        LegalMoves moves = new LegalMoves(calculator);
+        Entry added = new Entry(moves);
+        Entry previous = shared.putIfAbsent(key, added);
+        if (previous != null)
+            return previous.legalMoves;
+
+        evictionQueue.add(key);
+        if (weight.addAndGet(moves.getWeight()) > maxWeight)
+            evict();
+        return moves;
+    }
+
+    private void evict(){
+        while (weight.get() > maxWeight) {
+            Long key = evictionQueue.poll();
+            if (key == null)
+                return;
+            Entry entry = shared.get(key);
+            if (entry == null)
+                continue;
+            if (entry.referenced) {
+                entry.referenced = false;
+                evictionQueue.add(key);
+            } else if (shared.remove(key, entry)) {
+                weight.addAndGet(-entry.legalMoves.getWeight());
+                evictions.increment();
+            }
+        }
+    }
+
+    public void evict(int matchId){
+        current.remove(matchId);
+    }
+
+    public CacheStats getStats(){
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), shared.size(), weight.get(), maxWeight);
+    }
+
+    /**
+     * The legal moves of the last position of a match, with the version of the board they were
+     * computed at.
+     */
+    private static class Current {
+        private final long version;
+        private final LegalMoves legalMoves;
+
+        private Current(long version, LegalMoves legalMoves) {
+            this.version = version;
+            this.legalMoves = legalMoves;
+        }
+    }
+
+    private static class Entry {
+        private final LegalMoves legalMoves;
+        private volatile boolean referenced;
+
+        private Entry(LegalMoves legalMoves) {
+            this.legalMoves = legalMoves;
+        }
+    }
+}
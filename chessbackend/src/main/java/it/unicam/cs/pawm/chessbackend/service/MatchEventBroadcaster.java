@@ -0,0 +1,177 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the updates of the matches to the clients subscribed to them, as server-sent events.
+ *
+ * Each subscription is an {@link SseEmitter} kept open until the client disconnects, the emitter
+ * times out or the match is removed; the clients do not need to poll the board to learn about the
+ * moves of their opponent.
+ *
+ * Publishing an update never writes to the connections: the update is added to a bounded queue of
+ * every subscriber and the queues are sent by the executor of the broadcaster, one subscriber at a time
+ * and in order. A slow client therefore never blocks the mailbox of the match, and a client that falls
+ * more than {@value #MAX_PENDING} updates behind is unsubscribed: it can resynchronize from the board.
+ */
+public class MatchEventBroadcaster {
+    private static final Duration TIMEOUT = Duration.ofMinutes(30);
+    public static final int MAX_PENDING = 64;
+
+    private final Executor executor;
+    private final Map<Integer, Set<Subscription>> subscribers = new ConcurrentHashMap<>();
+
+    public MatchEventBroadcaster() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MatchEventBroadcaster(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Subscribes a new client to the updates of a match, sent as JSON.
+     *
+     * @param matchId the id of the match.
+     * @return the emitter of the events sent to the client.
+     */
+    public SseEmitter subscribe(int matchId){
+        return subscribe(matchId, false);
+    }
+
+    /**
+     * Subscribes a new client to the updates of a match.
+     *
+     * @param matchId the id of the match.
+     * @param binary true to send the updates encoded with {@link BinaryFormat} in base64, false to send
+     *               them as JSON.
+     * @return the emitter of the events sent to the client.
+     */
+    public SseEmitter subscribe(int matchId, boolean binary){
+        Set<Subscription> subscriptions = subscribers.computeIfAbsent(matchId, id -> new CopyOnWriteArraySet<>());
+        Subscription subscription = new Subscription(new SseEmitter(TIMEOUT.toMillis()), binary, subscriptions);
+        subscriptions.add(subscription);
+        subscription.emitter.onCompletion(() -> subscriptions.remove(subscription));
+        subscription.emitter.onTimeout(() -> subscriptions.remove(subscription));
+        subscription.emitter.onError(e -> subscriptions.remove(subscription));
+        return subscription.emitter;
+    }
+
+    /**
+     * Queues an update for all the clients subscribed to a match, without waiting for it to be sent. The
+     * clients that cannot be reached or that fall behind are unsubscribed.
+     *
+     * @param matchId the id of the match.
+     * @param update the update to send.
+     */
+    public void publish(int matchId, MatchUpdate update){
+        Set<Subscription> subscriptions = subscribers.get(matchId);
+        if (subscriptions == null)
+            return;
+
+        String id = String.valueOf(update.getPly());
+        String binary = null;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.binary) {
+                if (binary == null)
+                    binary = Base64.getEncoder().encodeToString(BinaryFormat.encodeUpdate(update));
+                subscription.offer(SseEmitter.event().id(id).data(binary));
+            } else {
+                subscription.offer(SseEmitter.event().id(id).data(update));
+            }
+        }
+    }
+
+    /**
+     * Closes all the subscriptions to a match.
+     *
+     * @param matchId the id of the match.
+     */
+    public void complete(int matchId){
+        Set<Subscription> subscriptions = subscribers.remove(matchId);
+        if (subscriptions != null)
+            subscriptions.forEach(subscription -> subscription.emitter.complete());
+    }
+
+    public int getSubscriberCount(int matchId){
+        Set<Subscription> subscriptions = subscribers.get(matchId);
+        return subscriptions == null ? 0 : subscriptions.size();
+    }
+
+    /**
+     * A client subscribed to a match, with the events still to be sent to it.
+     */
+    private class Subscription {
+        private final SseEmitter emitter;
+        private final boolean binary;
+        private final Set<Subscription> subscriptions;
+        private final Queue<SseEmitter.SseEventBuilder> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Subscription(SseEmitter emitter, boolean binary, Set<Subscription> subscriptions) {
+            this.emitter = emitter;
+            this.binary = binary;
+            this.subscriptions = subscriptions;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event){
+            if (pendingCount.incrementAndGet() > MAX_PENDING) {
+                drop(new IllegalStateException("The client is too slow"));
+                return;
+            }
+            pending.add(event);
+            schedule();
+        }
+
+        private void schedule(){
+            if (!scheduled.compareAndSet(false, true))
+                return;
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                scheduled.set(false);
+                drop(e);
+            }
+        }
+
+        private void drain(){
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = pending.poll()) != null) {
+                    pendingCount.decrementAndGet();
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop(e);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            if (!pending.isEmpty())
+                schedule();
+        }
+
+        private void drop(Exception cause){
+            if (subscriptions.remove(this)) {
+                pending.clear();
+                emitter.completeWithError(cause);
+            }
+        }
+    }
+}
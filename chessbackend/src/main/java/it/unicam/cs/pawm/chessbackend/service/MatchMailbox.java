@@ -0,0 +1,100 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * The mailbox of a match: every operation on the match is queued in the mailbox and executed on a
+ * shared executor, one at a time and in the order in which it was submitted.
+ *
+ * At most one task of a mailbox is running at any time, so the match is only accessed by a single
+ * writer and needs no lock, while the mailboxes of different matches run in parallel on the threads
+ * of the executor. A mailbox runs at most {@value #BATCH_SIZE} tasks before giving its thread back
+ * to the executor, so a busy match cannot starve the others.
+ */
+public class MatchMailbox {
+    private static final int BATCH_SIZE = 64;
+
+    private final Match match;
+    private final Executor executor;
+    private final Queue<Task<?>> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    public MatchMailbox(Match match, Executor executor) {
+        this.match = match;
+        this.executor = executor;
+    }
+
+    public Match getMatch() {
+        return match;
+    }
+
+    /**
+     * Queues an operation on the match. If the executor rejects the mailbox, the operations waiting in
+     * the mailbox fail with the exception of the executor.
+     *
+     * @param operation the operation to perform on the match.
+     * @return a future completed with the result of the operation, or exceptionally with the
+     *         exception or error it threw.
+     * @param <T> the type of the result.
+     */
+    public <T> CompletableFuture<T> submit(Function<Match, T> operation){
+        Task<T> task = new Task<>(operation);
+        tasks.add(task);
+        schedule();
+        return task.result;
+    }
+
+    private void schedule(){
+        if (!scheduled.compareAndSet(false, true))
+            return;
+        try {
+            executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            scheduled.set(false);
+            Task<?> task;
+            while ((task = tasks.poll()) != null)
+                task.result.completeExceptionally(e);
+        }
+    }
+
+    private void drain(){
+        try {
+            Task<?> task;
+            int processed = 0;
+            while (processed++ < BATCH_SIZE && (task = tasks.poll()) != null)
+                task.run();
+        } finally {
+            scheduled.set(false);
+        }
+        if (!tasks.isEmpty())
+            schedule();
+    }
+
+    /**
+     * An operation waiting in the mailbox, with the future of its result.
+     */
+    private class Task<T> {
+        private final Function<Match, T> operation;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Task(Function<Match, T> operation) {
+            this.operation = operation;
+        }
+
+        private void run(){
+            try {
+                result.complete(operation.apply(match));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+}
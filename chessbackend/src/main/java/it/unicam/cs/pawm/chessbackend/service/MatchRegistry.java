@@ -0,0 +1,118 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.TimeControl;
+import it.unicam.cs.pawm.chessbackend.model.game.match.WaitingRoom;
+import it.unicam.cs.pawm.chessbackend.model.game.matchbuilder.MatchBuilder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * The registry of the matches hosted by the server, indexed by their id.
+ *
+ * The matches are kept in a {@link ConcurrentHashMap}, so they can be created, looked up and removed
+ * by many requests at the same time: lookups never lock and updates only lock the bin of the map
+ * containing the match, so there is no global lock shared by unrelated matches.
+ *
+ * Every match has its own {@link MatchMailbox}: the operations that read or change a match should be
+ * submitted to its mailbox, so that they are applied one at a time and in order.
+ */
+public class MatchRegistry {
+    private final MatchBuilder builder;
+    private final Executor executor;
+    private final Map<Integer, MatchMailbox> matches = new ConcurrentHashMap<>();
+
+    public MatchRegistry(MatchBuilder builder) {
+        this(builder, ForkJoinPool.commonPool());
+    }
+
+    public MatchRegistry(MatchBuilder builder, Executor executor) {
+        this.builder = builder;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates a match between two players of the given waiting room and registers it.
+     *
+     * @param room the waiting room.
+     * @return the new match.
+     */
+    public Match create(WaitingRoom room){
+        Match match = builder.createMatch(room);
+        register(match);
+        return match;
+    }
+
+    /**
+     * Creates a match between two players of the given waiting room with the given time control and
+     * registers it.
+     *
+     * @param room the waiting room.
+     * @param timeControl the time control of the match.
+     * @return the new match.
+     */
+    public Match create(WaitingRoom room, TimeControl timeControl){
+        Match match = builder.createMatch(room, timeControl);
+        register(match);
+        return match;
+    }
+
+    /**
+     * Registers an existing match.
+     *
+     * @param match the match to register.
+     * @throws IllegalArgumentException if another match with the same id is already registered.
+     */
+    public void register(Match match){
+        if (matches.putIfAbsent(match.getId(), new MatchMailbox(match, executor)) != null)
+            throw new IllegalArgumentException("A match with id " + match.getId() + " is already registered.");
+    }
+
+    public Optional<Match> find(int id){
+        return findMailbox(id).map(MatchMailbox::getMatch);
+    }
+
+    public Optional<MatchMailbox> findMailbox(int id){
+        return Optional.ofNullable(matches.get(id));
+    }
+
+    /**
+     * Submits an operation to the mailbox of a match.
+     *
+     * @param id the id of the match.
+     * @param operation the operation to perform on the match.
+     * @return a future completed with the result of the operation, or an empty optional if no match
+     *         has the given id.
+     * @param <T> the type of the result.
+     */
+    public <T> Optional<CompletableFuture<T>> submit(int id, Function<Match, T> operation){
+        return findMailbox(id).map(mailbox -> mailbox.submit(operation));
+    }
+
+    /**
+     * Removes a match from the registry, releasing the resources of its clock.
+     *
+     * @param id the id of the match.
+     * @return the removed match, or an empty optional if no match has the given id.
+     */
+    public Optional<Match> remove(int id){
+        Optional<Match> removed = Optional.ofNullable(matches.remove(id)).map(MatchMailbox::getMatch);
+        removed.ifPresent(match -> match.getClock().dispose());
+        return removed;
+    }
+
+    public Collection<Match> getMatches(){
+        return matches.values().stream().map(MatchMailbox::getMatch).toList();
+    }
+
+    public int size(){
+        return matches.size();
+    }
+}
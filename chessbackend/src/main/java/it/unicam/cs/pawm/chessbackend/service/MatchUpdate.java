@@ -0,0 +1,97 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEffect;
+import it.unicam.cs.pawm.chessbackend.model.game.match.HistoryEntry;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.MatchEndingResult;
+
+/**
+ * An update of a match pushed to its subscribers: the move applied with its effect, or no move when
+ * the update is caused by a player running out of time, together with the state of the clock and
+ * the ending of the match. The update of a move carries the state recorded in the history right after
+ * that move, so the moves applied together with the premoves that follow them keep their own clocks
+ * and ending.
+ */
+public class MatchUpdate {
+    private final int ply;
+    private final Integer originRow;
+    private final Integer originColumn;
+    private final Integer targetRow;
+    private final Integer targetColumn;
+    private final String effect;
+    private final String ending;
+    private final long whiteTime;
+    private final long blackTime;
+
+    private MatchUpdate(int ply, Move move, MoveEffect effect, MatchEndingResult ending, long whiteTime, long blackTime) {
+        this.ply = ply;
+        this.originRow = move == null ? null : move.getOrigin().getRow();
+        this.originColumn = move == null ? null : move.getOrigin().getColumn();
+        this.targetRow = move == null ? null : move.getTarget().getRow();
+        this.targetColumn = move == null ? null : move.getTarget().getColumn();
+        this.effect = effect == null ? null : effect.name();
+        this.ending = ending == null ? null : ending.name();
+        this.whiteTime = whiteTime;
+        this.blackTime = blackTime;
+    }
+
+    /**
+     * Creates the update of a move in the history of a match.
+     *
+     * @param entry the entry of the move in the history.
+     * @return the update.
+     */
+    public static MatchUpdate ofEntry(HistoryEntry entry){
+        return new MatchUpdate(entry.getPly(), entry.getMove(), entry.getEffect(),
+            entry.getEnding().orElse(null), entry.getWhiteTime(), entry.getBlackTime());
+    }
+
+    /**
+     * Creates the update of a match in which a player ran out of time.
+     *
+     * @param match the match.
+     * @return the update.
+     */
+    public static MatchUpdate ofFlagFall(Match match){
+        return new MatchUpdate(match.getHistory().size(), null, null, match.getEnding().orElse(null),
+            match.getClock().getRemainingTime(match.getWhitePlayer()),
+            match.getClock().getRemainingTime(match.getBlackPlayer()));
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public Integer getOriginRow() {
+        return originRow;
+    }
+
+    public Integer getOriginColumn() {
+        return originColumn;
+    }
+
+    public Integer getTargetRow() {
+        return targetRow;
+    }
+
+    public Integer getTargetColumn() {
+        return targetColumn;
+    }
+
+    public String getEffect() {
+        return effect;
+    }
+
+    public String getEnding() {
+        return ending;
+    }
+
+    public long getWhiteTime() {
+        return whiteTime;
+    }
+
+    public long getBlackTime() {
+        return blackTime;
+    }
+}
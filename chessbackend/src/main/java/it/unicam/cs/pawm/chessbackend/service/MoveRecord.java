@@ -0,0 +1,37 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Bitboards;
+import it.unicam.cs.pawm.chessbackend.model.game.Square;
+import it.unicam.cs.pawm.chessbackend.model.game.match.HistoryEntry;
+
+/**
+ * The compact representation of a move sent to the clients: its ply, the move in coordinate
+ * notation (e.g. "e2e4") and its effect.
+ */
+public class MoveRecord {
+    private final int ply;
+    private final String move;
+    private final String effect;
+
+    public MoveRecord(HistoryEntry entry) {
+        this.ply = entry.getPly();
+        this.move = nameOf(entry.getMove().getOrigin()) + nameOf(entry.getMove().getTarget());
+        this.effect = entry.getEffect() == null ? null : entry.getEffect().name();
+    }
+
+    private static String nameOf(Square square){
+        return Bitboards.name(Bitboards.square(square.getRow(), square.getColumn()));
+    }
+
+    public int getPly() {
+        return ply;
+    }
+
+    public String getMove() {
+        return move;
+    }
+
+    public String getEffect() {
+        return effect;
+    }
+}
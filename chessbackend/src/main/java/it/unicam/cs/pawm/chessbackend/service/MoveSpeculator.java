@@ -0,0 +1,75 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Chessboard;
+import it.unicam.cs.pawm.chessbackend.model.game.PrecomputedMoves;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Precomputes the effects of the legal moves of the side to move of every match while the player
+ * thinks, so that the move of the player is validated with a lookup instead of analyzing the position
+ * when the request arrives.
+ *
+ * The effects are computed on a copy of the board, taken by the mailbox of the match, by a low
+ * priority executor that should not compete with the mailboxes. When the move arrives, the mailbox
+ * takes the precomputed effects if they are ready, otherwise the precomputation is cancelled and the
+ * move is evaluated as usual.
+ */
+public class MoveSpeculator {
+    private final ExecutorService executor;
+    private final Map<Integer, Future<PrecomputedMoves>> speculations = new ConcurrentHashMap<>();
+
+    public MoveSpeculator(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Starts the precomputation of the effects of the moves in the current position of a match,
+     * cancelling the one started for the previous position. It must be called by the mailbox of the
+     * match.
+     *
+     * @param match the match.
+     */
+    public void speculate(Match match){
+        cancel(match.getId());
+        if (match.isEnded())
+            return;
+        Chessboard copy = match.getMoveEvaluator().getCalculator().getChessboard().copy();
+        speculations.put(match.getId(), executor.submit(() -> PrecomputedMoves.compute(copy)));
+    }
+
+    /**
+     * Returns the effects precomputed for the current position of a match, if their computation is
+     * completed; otherwise the computation is cancelled. It must be called by the mailbox of the
+     * match.
+     *
+     * @param match the match.
+     * @return the effects precomputed for the current position, if they are ready.
+     */
+    public Optional<PrecomputedMoves> take(Match match){
+        Future<PrecomputedMoves> speculation = speculations.remove(match.getId());
+        if (speculation == null)
+            return Optional.empty();
+        if (!speculation.isDone()) {
+            speculation.cancel(true);
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(speculation.get());
+        } catch (ExecutionException | InterruptedException | RuntimeException e) {
+            return Optional.empty();
+        }
+    }
+
+    public void cancel(int matchId){
+        Future<PrecomputedMoves> speculation = speculations.remove(matchId);
+        if (speculation != null)
+            speculation.cancel(true);
+    }
+}
@@ -0,0 +1,11 @@
+package it.unicam.cs.pawm.chessbackend.service;
+
+/**
+ * The status of a position for the side to move.
+ */
+public enum PositionStatus {
+    PLAYING,
+    CHECK,
+    CHECKMATE,
+    STALEMATE
+}
@@ -1,15 +1,25 @@
 package it.unicam.cs.pawm.chessbackend.service.beans;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import it.unicam.cs.pawm.chessbackend.model.game.Chessboard;
 import it.unicam.cs.pawm.chessbackend.model.game.Color;
 import it.unicam.cs.pawm.chessbackend.model.game.match.Player;
 import it.unicam.cs.pawm.chessbackend.model.game.match.WaitingRoom;
 import it.unicam.cs.pawm.chessbackend.model.game.matchbuilder.MatchBuilder;
 import it.unicam.cs.pawm.chessbackend.model.game.matchbuilder.StandardMatchBuilder;
+import it.unicam.cs.pawm.chessbackend.service.BoardPayloadCache;
+import it.unicam.cs.pawm.chessbackend.service.LegalMovesCache;
+import it.unicam.cs.pawm.chessbackend.service.MatchEventBroadcaster;
+import it.unicam.cs.pawm.chessbackend.service.MatchRegistry;
+import it.unicam.cs.pawm.chessbackend.service.MoveSpeculator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Configuration
 @ComponentScan
 public class Config {
@@ -24,6 +34,64 @@ public class Config {
         return new StandardMatchBuilder();
     }
 
+    @Bean
+    public MatchRegistry registry(MatchBuilder builder, ExecutorService matchExecutor){
+        return new MatchRegistry(builder, matchExecutor);
+    }
+
+    @Bean
+    public MatchEventBroadcaster broadcaster(ExecutorService eventExecutor){
+        return new MatchEventBroadcaster(eventExecutor);
+    }
+
+    @Bean
+    public BoardPayloadCache payloadCache(ObjectMapper mapper){
+        return new BoardPayloadCache(mapper);
+    }
+
+    @Bean
+    public LegalMovesCache legalMovesCache(){
+        return new LegalMovesCache();
+    }
+
+    @Bean
+    public MoveSpeculator speculator(ExecutorService speculationExecutor){
+        return new MoveSpeculator(speculationExecutor);
+    }
+
+    /**
+     * The executor shared by the mailboxes of all the matches, with one thread per core.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService matchExecutor(){
+        return Executors.newWorkStealingPool();
+    }
+
+    /**
+     * The executor sending the events to the subscribers of the matches, kept apart from the mailboxes
+     * so that slow connections never delay the moves.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService eventExecutor(){
+        return Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * The executor of the speculative work, with half of the cores and daemon threads of minimum
+     * priority, so that it only uses the time left by the mailboxes.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ExecutorService speculationExecutor(){
+        AtomicInteger count = new AtomicInteger();
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "speculation-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
     @Bean
     public WaitingRoom room(){
         Player white = new Player(Color.WHITE, "anto", 600);
@@ -0,0 +1,35 @@
+package it.unicam.cs.pawm.chessbackend;
+
+import it.unicam.cs.pawm.chessbackend.model.game.AttackTables;
+import it.unicam.cs.pawm.chessbackend.model.game.Bitboards;
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AttackTablesTest {
+    @Test
+    public void knightShouldHaveCorrectAttacks(){
+        assertEquals(2, Long.bitCount(AttackTables.knight(Bitboards.square(0, 0))));
+        assertEquals(4, Long.bitCount(AttackTables.knight(Bitboards.square(0, 3))));
+        assertEquals(8, Long.bitCount(AttackTables.knight(Bitboards.square(3, 3))));
+        assertTrue(Bitboards.contains(AttackTables.knight(Bitboards.square(0, 1)), Bitboards.square(2, 2)));
+        assertFalse(Bitboards.contains(AttackTables.knight(Bitboards.square(0, 7)), Bitboards.square(1, 0)));
+    }
+
+    @Test
+    public void kingShouldHaveCorrectAttacks(){
+        assertEquals(3, Long.bitCount(AttackTables.king(Bitboards.square(7, 7))));
+        assertEquals(5, Long.bitCount(AttackTables.king(Bitboards.square(0, 4))));
+        assertEquals(8, Long.bitCount(AttackTables.king(Bitboards.square(4, 4))));
+    }
+
+    @Test
+    public void pawnShouldHaveCorrectAttacksAndPushes(){
+        assertEquals(1, Long.bitCount(AttackTables.pawn(Bitboards.square(1, 0), Color.WHITE)));
+        assertEquals(2, Long.bitCount(AttackTables.pawn(Bitboards.square(6, 3), Color.BLACK)));
+        assertEquals(0, AttackTables.pawn(Bitboards.square(7, 3), Color.WHITE));
+        assertEquals(Bitboards.bit(Bitboards.square(2, 4)), AttackTables.pawnPush(Bitboards.square(1, 4), Color.WHITE));
+        assertEquals(Bitboards.bit(Bitboards.square(5, 4)), AttackTables.pawnPush(Bitboards.square(6, 4), Color.BLACK));
+    }
+}
@@ -0,0 +1,76 @@
+package it.unicam.cs.pawm.chessbackend;
+
+import it.unicam.cs.pawm.chessbackend.model.game.*;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.MatchEndingResult;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Player;
+import it.unicam.cs.pawm.chessbackend.model.game.match.PlayerPair;
+import it.unicam.cs.pawm.chessbackend.service.BinaryFormat;
+import it.unicam.cs.pawm.chessbackend.service.MatchUpdate;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryFormatTest {
+
+    @Test
+    public void squaresShouldBeNibblePacked(){
+        Match match = new Match(0, 60000, new PlayerPair(
+            new Player(Color.WHITE, "ant", 600), new Player(Color.BLACK, "ben", 700)
+        ));
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.start();
+        match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4)));
+
+        byte[] squares = BinaryFormat.encodeSquares(match.getSnapshot());
+
+        assertEquals(33, squares.length);
+        assertEquals((byte) 0x42, squares[0]);
+        assertEquals((byte) 0x53, squares[1]);
+        assertEquals((byte) 0x36, squares[2]);
+        assertEquals((byte) 0x11, squares[4]);
+        assertEquals(0, squares[8]);
+        assertEquals((byte) 0x99, squares[24]);
+        assertEquals((byte) 0xCA, squares[28]);
+        assertEquals(0x10, squares[6]);
+        assertEquals(0x01, squares[14]);
+        assertEquals(1, squares[32]);
+        match.getClock().dispose();
+    }
+
+    @Test
+    public void boardShouldEndWithClocks(){
+        byte[] board = BinaryFormat.encodeBoard(new byte[33], 59000, 60000);
+
+        assertEquals(41, board.length);
+        assertEquals(59000, ByteBuffer.wrap(board, 33, 4).getInt());
+        assertEquals(60000, ByteBuffer.wrap(board, 37, 4).getInt());
+    }
+
+    @Test
+    public void moveShouldTakeThreeBytes(){
+        Chessboard board = new Chessboard();
+
+        byte[] move = BinaryFormat.encodeMove(board.getSquareAt(1, 3), board.getSquareAt(3, 3), MoveEffect.CHECK);
+
+        assertEquals(3, move.length);
+        assertEquals(11 | 27 << 6, ByteBuffer.wrap(move).getShort() & 0xFFFF);
+        assertEquals(MoveEffect.CHECK.ordinal(), move[2]);
+    }
+
+    @Test
+    public void flagFallWithoutEndingShouldBeEncodedAsTime(){
+        Match match = new Match(0, 60000, new PlayerPair(
+            new Player(Color.WHITE, "ant", 600), new Player(Color.BLACK, "ben", 700)
+        ));
+
+        byte[] update = BinaryFormat.encodeUpdate(MatchUpdate.ofFlagFall(match));
+
+        assertEquals(11, update.length);
+        assertEquals(BinaryFormat.FLAG_FALL, ByteBuffer.wrap(update).getShort() & 0xFFFF);
+        assertEquals(MatchEndingResult.TIME.ordinal(), update[2]);
+        match.getClock().dispose();
+    }
+}
@@ -0,0 +1,74 @@
+package it.unicam.cs.pawm.chessbackend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unicam.cs.pawm.chessbackend.model.game.Chessboard;
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Player;
+import it.unicam.cs.pawm.chessbackend.model.game.match.PlayerPair;
+import it.unicam.cs.pawm.chessbackend.service.BinaryFormat;
+import it.unicam.cs.pawm.chessbackend.service.BoardPayload;
+import it.unicam.cs.pawm.chessbackend.service.BoardPayloadCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardPayloadCacheTest {
+    private Match match;
+    private BoardPayloadCache cache;
+
+    @BeforeEach
+    public void initializeCache(){
+        match = new Match(0, 60000, new PlayerPair(
+            new Player(Color.WHITE, "ant", 600), new Player(Color.BLACK, "ben", 700)
+        ));
+        match.start();
+        cache = new BoardPayloadCache(new ObjectMapper());
+    }
+
+    @AfterEach
+    public void disposeMatch(){
+        match.getClock().dispose();
+    }
+
+    @Test
+    public void payloadShouldBeSerializedOncePerVersion(){
+        BoardPayload payload = cache.getOrSerialize(match);
+
+        assertSame(payload, cache.getOrSerialize(match));
+        assertEquals(match.getSnapshot().getVersion(), payload.getVersion());
+        assertTrue(payload.getJson().length > 0);
+    }
+
+    @Test
+    public void payloadShouldChangeAfterMove(){
+        BoardPayload before = cache.getOrSerialize(match);
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.onMove(new Move(board.getSquareAt(1, 3), board.getSquareAt(3, 3)));
+        BoardPayload after = cache.getOrSerialize(match);
+
+        assertNotSame(before, after);
+        assertEquals(match.getSnapshot().getVersion(), after.getVersion());
+        assertEquals(0, before.getPly());
+        assertEquals(1, after.getPly());
+        assertNotEquals(before.getEtag(), after.getEtag());
+        assertFalse(after.matches(before.getEtag()));
+        assertTrue(after.matches(before.getEtag() + ", " + after.getEtag()));
+        assertFalse(after.matches(null));
+    }
+
+    @Test
+    public void payloadShouldBeSerializedFromSnapshotAsTheBoard() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4)));
+
+        BoardPayload payload = cache.getOrSerialize(match);
+
+        assertArrayEquals(mapper.writeValueAsBytes(board.getChessboard()), payload.getJson());
+        assertArrayEquals(BinaryFormat.encodeSquares(match.getSnapshot()), payload.getSquares());
+    }
+}
@@ -102,4 +102,147 @@ public class ChessboardTest {
             assertEquals(Color.BLACK, chessboard.getSquareAt(7, i).getPiece().get().getColor());
         }
     }
+
+    @Test
+    public void positionShouldFollowSquaresChanges(){
+        Piece rook = new Piece(1, PieceType.ROOK, Color.WHITE);
+        Piece knight = new Piece(2, PieceType.KNIGHT, Color.BLACK);
+        Position position = chessboard.getPosition();
+
+        chessboard.getSquareAt(0, 0).occupyWith(rook);
+        chessboard.getSquareAt(7, 7).occupyWith(knight);
+
+        assertEquals(1L, position.getPieces(PieceType.ROOK, Color.WHITE));
+        assertEquals(1L << 63, position.getOccupancy(Color.BLACK));
+        assertEquals(2, Long.bitCount(position.getOccupied()));
+
+        chessboard.getSquareAt(7, 7).occupyWith(rook);
+        chessboard.getSquareAt(0, 0).free();
+
+        assertEquals(0L, position.getPieces(PieceType.KNIGHT, Color.BLACK));
+        assertEquals(1L << 63, position.getPieces(PieceType.ROOK, Color.WHITE));
+        assertEquals(1L << 63, position.getOccupied());
+        assertEquals(chessboard.getSquareAt(7, 7), chessboard.getSquareFor(rook));
+        assertEquals(1, position.getPieceCount(Color.WHITE));
+        assertEquals(0, position.getPieceCount(Color.BLACK));
+        assertEquals(rook, position.getPiece(Color.WHITE, 0));
+        assertEquals(63, position.getPieceSquare(Color.WHITE, 0));
+        assertEquals(-1, position.getSquareOf(knight));
+    }
+
+    @Test
+    public void pieceIndexShouldFollowMoves(){
+        Set<Piece> whitePieces = PieceFactory.getSet(Color.WHITE);
+        Set<Piece> blackPieces = PieceFactory.getSet(Color.BLACK);
+        chessboard.initializeBoard(whitePieces, blackPieces);
+        Piece knight = chessboard.getSquareAt(0, 1).getPiece().orElseThrow();
+
+        chessboard.evolve(new Move(chessboard.getSquareAt(0, 1), chessboard.getSquareAt(2, 2)));
+
+        assertEquals(chessboard.getSquareAt(2, 2), chessboard.getSquareFor(knight));
+        assertEquals(16, chessboard.getPiecesOfColor(Color.WHITE).size());
+        assertEquals(16, chessboard.getPosition().getPieceCount(Color.BLACK));
+        for (Piece piece : whitePieces)
+            assertEquals(piece, chessboard.getSquareFor(piece).getPiece().orElseThrow());
+    }
+
+    @Test
+    public void unmakeMoveShouldRestorePosition(){
+        chessboard.initializeBoard(PieceFactory.getSet(Color.WHITE), PieceFactory.getSet(Color.BLACK));
+        Position position = chessboard.getPosition();
+        long whiteOccupancy = position.getOccupancy(Color.WHITE);
+        long blackOccupancy = position.getOccupancy(Color.BLACK);
+        Piece whitePawn = chessboard.getSquareAt(1, 4).getPiece().orElseThrow();
+        Piece blackPawn = chessboard.getSquareAt(6, 3).getPiece().orElseThrow();
+
+        chessboard.makeMove(PackedMove.encode(Bitboards.square(1, 4), Bitboards.square(3, 4), PackedMove.DOUBLE_PUSH));
+        chessboard.makeMove(PackedMove.encode(Bitboards.square(6, 3), Bitboards.square(4, 3), PackedMove.DOUBLE_PUSH));
+        chessboard.makeMove(PackedMove.encode(Bitboards.square(3, 4), Bitboards.square(4, 3), PackedMove.CAPTURE));
+
+        assertEquals(3, chessboard.getUndoDepth());
+        assertEquals(15, position.getPieceCount(Color.BLACK));
+        assertEquals(chessboard.getSquareAt(4, 3), chessboard.getSquareFor(whitePawn));
+        assertTrue(whitePawn.hasMoved());
+
+        chessboard.unmakeMove();
+        chessboard.unmakeMove();
+        chessboard.unmakeMove();
+
+        assertEquals(0, chessboard.getUndoDepth());
+        assertEquals(whiteOccupancy, position.getOccupancy(Color.WHITE));
+        assertEquals(blackOccupancy, position.getOccupancy(Color.BLACK));
+        assertEquals(chessboard.getSquareAt(1, 4), chessboard.getSquareFor(whitePawn));
+        assertEquals(chessboard.getSquareAt(6, 3), chessboard.getSquareFor(blackPawn));
+        assertFalse(whitePawn.hasMoved());
+        assertFalse(blackPawn.hasMoved());
+        assertThrows(IllegalStateException.class, chessboard::unmakeMove);
+    }
+
+    @Test
+    public void keyShouldBeRestoredByUnmakeMove(){
+        Fen.load(Fen.STARTING_POSITION, chessboard);
+        long initialKey = chessboard.getPosition().getKey();
+
+        chessboard.makeMove(PackedMove.encode(12, 28, PackedMove.NONE));
+        assertNotEquals(initialKey, chessboard.getPosition().getKey());
+        assertEquals(Color.BLACK, chessboard.getPosition().getSideToMove());
+
+        chessboard.unmakeMove();
+        assertEquals(initialKey, chessboard.getPosition().getKey());
+        assertEquals(Color.WHITE, chessboard.getPosition().getSideToMove());
+    }
+
+    @Test
+    public void transpositionsShouldHaveSameKey(){
+        Chessboard other = new Chessboard();
+        Fen.load(Fen.STARTING_POSITION, chessboard);
+        Fen.load(Fen.STARTING_POSITION, other);
+
+        chessboard.makeMove(PackedMove.encode(6, 21, PackedMove.NONE));
+        chessboard.makeMove(PackedMove.encode(62, 45, PackedMove.NONE));
+        chessboard.makeMove(PackedMove.encode(1, 18, PackedMove.NONE));
+        other.makeMove(PackedMove.encode(1, 18, PackedMove.NONE));
+        other.makeMove(PackedMove.encode(62, 45, PackedMove.NONE));
+        other.makeMove(PackedMove.encode(6, 21, PackedMove.NONE));
+
+        assertEquals(chessboard.getPosition().getKey(), other.getPosition().getKey());
+    }
+
+    @Test
+    public void keyShouldMatchLoadedPosition(){
+        Chessboard other = new Chessboard();
+        Fen.load(Fen.STARTING_POSITION, chessboard);
+        Fen.load("rnbqkbnr/pppppppp/8/8/8/5N2/PPPPPPPP/RNBQKB1R b KQkq - 1 1", other);
+
+        chessboard.makeMove(PackedMove.encode(6, 21, PackedMove.NONE));
+
+        assertEquals(chessboard.getPosition().getKey(), other.getPosition().getKey());
+    }
+
+    @Test
+    public void movedPawnShouldChangeKey(){
+        Chessboard other = new Chessboard();
+        Fen.load(Fen.STARTING_POSITION, chessboard);
+        Fen.load(Fen.STARTING_POSITION, other);
+
+        chessboard.makeMove(PackedMove.encode(12, 20, PackedMove.NONE));
+        chessboard.makeMove(PackedMove.encode(52, 44, PackedMove.NONE));
+        chessboard.makeMove(PackedMove.encode(20, 12, PackedMove.NONE));
+        chessboard.makeMove(PackedMove.encode(44, 52, PackedMove.NONE));
+
+        assertNotEquals(chessboard.getPosition().getKey(), other.getPosition().getKey());
+    }
+
+    @Test
+    public void copyShouldBeIndependent(){
+        Fen.load(Fen.STARTING_POSITION, chessboard);
+        Chessboard copy = chessboard.copy();
+
+        assertEquals(chessboard.getPosition().getKey(), copy.getPosition().getKey());
+        copy.makeMove(PackedMove.encode(12, 28, PackedMove.NONE));
+
+        assertTrue(chessboard.getSquareAt(1, 4).getPiece().isPresent());
+        assertFalse(chessboard.getSquareAt(1, 4).getPiece().orElseThrow().hasMoved());
+        assertNotEquals(chessboard.getPosition().getKey(), copy.getPosition().getKey());
+    }
 }
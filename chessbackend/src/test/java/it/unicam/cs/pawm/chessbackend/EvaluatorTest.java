@@ -139,4 +139,36 @@ public class EvaluatorTest {
 
         assertEquals(MoveEffect.CHECKMATE, evaluator.evaluate(blackQueenMove));
     }
+
+    @Test
+    public void precomputedEffectsShouldMatchEvaluation(){
+        Chessboard board = evaluator.getCalculator().getChessboard();
+        Fen.load("rnbqkbnr/pppp1ppp/8/4p3/6P1/5P2/PPPPP2P/RNBQKBNR b KQkq - 0 2", board);
+
+        PrecomputedMoves precomputed = PrecomputedMoves.compute(board.copy());
+        MoveBuffer moves = new MoveBuffer();
+        evaluator.getCalculator().generateLegalMoves(Color.BLACK, moves);
+
+        assertEquals(moves.size(), precomputed.size());
+        assertEquals(MoveEffect.CHECKMATE, precomputed.getEffect(59, 31));
+        assertEquals(MoveEffect.ILLEGAL, precomputed.getEffect(59, 23));
+        for (int i = 0; i < moves.size(); i++) {
+            int origin = PackedMove.getOrigin(moves.get(i));
+            int target = PackedMove.getTarget(moves.get(i));
+            MoveEffect effect = evaluator.evaluate(new Move(board.getSquareAt(origin), board.getSquareAt(target)));
+            board.unmakeMove();
+            assertEquals(effect, precomputed.getEffect(origin, target));
+        }
+    }
+
+    @Test
+    public void precomputedEffectsShouldBeFoundByMove(){
+        Chessboard board = evaluator.getCalculator().getChessboard();
+        Fen.load(Fen.STARTING_POSITION, board);
+        PrecomputedMoves precomputed = PrecomputedMoves.compute(board.copy());
+
+        assertEquals(MoveEffect.ILLEGAL, precomputed.getEffect(new Move(board.getSquareAt(1, 4), board.getSquareAt(4, 4))));
+        assertEquals(MoveEffect.MOVE, precomputed.getEffect(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4))));
+        assertEquals(Color.WHITE, board.getPosition().getSideToMove());
+    }
 }
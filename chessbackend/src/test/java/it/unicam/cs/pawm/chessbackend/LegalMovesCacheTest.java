@@ -0,0 +1,184 @@
+package it.unicam.cs.pawm.chessbackend;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Chessboard;
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEffect;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEvaluator;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Player;
+import it.unicam.cs.pawm.chessbackend.model.game.match.PlayerPair;
+import it.unicam.cs.pawm.chessbackend.service.CacheStats;
+import it.unicam.cs.pawm.chessbackend.service.LegalMoves;
+import it.unicam.cs.pawm.chessbackend.service.LegalMovesCache;
+import it.unicam.cs.pawm.chessbackend.service.PositionStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LegalMovesCacheTest {
+    private Match match;
+    private LegalMovesCache cache;
+
+    @BeforeEach
+    public void initializeCache(){
+        match = new Match(0, 60000, new PlayerPair(
+            new Player(Color.WHITE, "ant", 600), new Player(Color.BLACK, "ben", 700)
+        ));
+        match.start();
+        cache = new LegalMovesCache();
+    }
+
+    @AfterEach
+    public void disposeMatch(){
+        match.getClock().dispose();
+    }
+
+    @Test
+    public void legalMovesShouldBeComputedOncePerVersion(){
+        assertTrue(cache.getIfCurrent(match).isEmpty());
+
+        LegalMoves moves = cache.getOrCompute(match);
+
+        assertSame(moves, cache.getOrCompute(match));
+        assertEquals(Color.WHITE, moves.getSideToMove());
+        assertEquals(PositionStatus.PLAYING, moves.getStatus());
+        assertEquals(20, moves.getMoves().size());
+        assertTrue(moves.getMoves().contains("e2e4"));
+        assertEquals(List.of("d3", "d4"), moves.getTargets(1, 3));
+        assertEquals(List.of("a6", "c6"), moves.getTargets(7, 1));
+        assertTrue(moves.getTargets(4, 4).isEmpty());
+    }
+
+    @Test
+    public void legalMovesShouldFollowTheBoard(){
+        cache.getOrCompute(match);
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4)));
+
+        assertTrue(cache.getIfCurrent(match).isEmpty());
+        LegalMoves moves = cache.getOrCompute(match);
+
+        assertEquals(Color.BLACK, moves.getSideToMove());
+        assertEquals(20, moves.getMoves().size());
+        assertEquals(List.of("e2", "f3", "g4", "h5"), moves.getTargets(0, 3));
+    }
+
+    @Test
+    public void legalMovesShouldBeSharedByMatchesInTheSamePosition(){
+        Match other = new Match(1, 60000, new PlayerPair(
+            new Player(Color.WHITE, "carl", 600), new Player(Color.BLACK, "dan", 700)
+        ));
+        other.start();
+
+        LegalMoves moves = cache.getOrCompute(match);
+
+        assertSame(moves, cache.getOrCompute(other));
+        assertEquals(1, cache.getStats().getHits());
+        assertEquals(1, cache.getStats().getMisses());
+        assertEquals(1, cache.getStats().getSize());
+        other.getClock().dispose();
+    }
+
+    @Test
+    public void everyLookupShouldCountOnce(){
+        assertTrue(cache.find(match.getKey()).isEmpty());
+        assertTrue(cache.getIfCurrent(match).isEmpty());
+        cache.getOrCompute(match);
+        assertTrue(cache.find(match.getKey()).isPresent());
+
+        CacheStats stats = cache.getStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(3, stats.getMisses());
+    }
+
+    @Test
+    public void statusShouldReportCheckmate(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.onMove(new Move(board.getSquareAt(1, 5), board.getSquareAt(2, 5)));
+        match.onMove(new Move(board.getSquareAt(6, 4), board.getSquareAt(4, 4)));
+        match.onMove(new Move(board.getSquareAt(1, 6), board.getSquareAt(3, 6)));
+        match.onMove(new Move(board.getSquareAt(7, 3), board.getSquareAt(3, 7)));
+
+        LegalMoves moves = cache.getOrCompute(match);
+
+        assertEquals(PositionStatus.CHECKMATE, moves.getStatus());
+        assertTrue(moves.getMoves().isEmpty());
+    }
+
+    @Test
+    public void movesShouldBeValidatedWithSharedTable(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        cache.getOrCompute(match);
+
+        MoveEvaluator evaluator = cache.evaluatorFor(match, Optional.empty());
+
+        assertEquals(MoveEffect.ILLEGAL, match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(4, 4)), evaluator));
+        assertEquals(MoveEffect.MOVE, match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4)), evaluator));
+        assertEquals(Color.BLACK, match.getSideToMove());
+        assertEquals(1, match.getHistory().size());
+        assertEquals(2, cache.getStats().getHits());
+    }
+
+    @Test
+    public void validationShouldDetectCheckmate(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        MoveEvaluator evaluator = cache.evaluatorFor(match, Optional.empty());
+        match.onMove(new Move(board.getSquareAt(1, 5), board.getSquareAt(2, 5)), evaluator);
+        match.onMove(new Move(board.getSquareAt(6, 4), board.getSquareAt(4, 4)), evaluator);
+        match.onMove(new Move(board.getSquareAt(1, 6), board.getSquareAt(3, 6)), evaluator);
+
+        assertEquals(MoveEffect.CHECKMATE, match.onMove(new Move(board.getSquareAt(7, 3), board.getSquareAt(3, 7)), evaluator));
+        assertTrue(match.isEnded());
+    }
+
+    @Test
+    public void matchesPlayingTheSameOpeningShouldValidateWithHits(){
+        Match other = new Match(1, 60000, new PlayerPair(
+            new Player(Color.WHITE, "carl", 600), new Player(Color.BLACK, "dan", 700)
+        ));
+        other.start();
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        Chessboard otherBoard = other.getMoveEvaluator().getCalculator().getChessboard();
+
+        MoveEvaluator evaluator = cache.evaluatorFor(match, Optional.empty());
+        match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4)), evaluator);
+        match.onMove(new Move(board.getSquareAt(6, 4), board.getSquareAt(4, 4)), evaluator);
+        CacheStats first = cache.getStats();
+
+        MoveEvaluator otherEvaluator = cache.evaluatorFor(other, Optional.empty());
+        assertEquals(MoveEffect.MOVE, other.onMove(new Move(otherBoard.getSquareAt(1, 4), otherBoard.getSquareAt(3, 4)), otherEvaluator));
+        assertEquals(MoveEffect.MOVE, other.onMove(new Move(otherBoard.getSquareAt(6, 4), otherBoard.getSquareAt(4, 4)), otherEvaluator));
+        CacheStats second = cache.getStats();
+
+        assertEquals(0, first.getHits());
+        assertEquals(2, first.getSize());
+        assertEquals(2, second.getSize());
+        assertEquals(3, second.getHits());
+        assertEquals(first.getMisses() + 1, second.getMisses());
+        other.getClock().dispose();
+    }
+
+    @Test
+    public void sharedTableShouldStayWithinMaximumWeight(){
+        LegalMovesCache small = new LegalMovesCache(2000);
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+
+        small.getOrCompute(match);
+        match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4)));
+        small.getOrCompute(match);
+        match.onMove(new Move(board.getSquareAt(6, 4), board.getSquareAt(4, 4)));
+        small.getOrCompute(match);
+
+        CacheStats stats = small.getStats();
+        assertTrue(stats.getWeight() <= 2000);
+        assertEquals(3, stats.getMisses());
+        assertEquals(3 - stats.getSize(), stats.getEvictions());
+        assertTrue(stats.getEvictions() > 0);
+    }
+}
@@ -0,0 +1,75 @@
+package it.unicam.cs.pawm.chessbackend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import it.unicam.cs.pawm.chessbackend.controllers.MatchController;
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Player;
+import it.unicam.cs.pawm.chessbackend.model.game.match.WaitingRoom;
+import it.unicam.cs.pawm.chessbackend.model.game.matchbuilder.StandardMatchBuilder;
+import it.unicam.cs.pawm.chessbackend.service.BoardPayloadCache;
+import it.unicam.cs.pawm.chessbackend.service.LegalMovesCache;
+import it.unicam.cs.pawm.chessbackend.service.MatchEventBroadcaster;
+import it.unicam.cs.pawm.chessbackend.service.MatchRegistry;
+import it.unicam.cs.pawm.chessbackend.service.MoveSpeculator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchControllerTest {
+    private ExecutorService executor;
+    private MatchRegistry registry;
+    private MatchController controller;
+
+    @BeforeEach
+    public void initializeController(){
+        executor = Executors.newSingleThreadExecutor();
+        registry = new MatchRegistry(new StandardMatchBuilder());
+        WaitingRoom room = new WaitingRoom();
+        room.addPlayer(new Player(Color.WHITE, "ant", 600));
+        room.addPlayer(new Player(Color.BLACK, "ben", 700));
+        controller = new MatchController(registry, new MatchEventBroadcaster(), new BoardPayloadCache(new ObjectMapper()),
+            new LegalMovesCache(), new MoveSpeculator(executor), room);
+    }
+
+    @AfterEach
+    public void disposeController(){
+        registry.getMatches().forEach(match -> match.getClock().dispose());
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void premoveAfterCheckmateShouldBeRejectedWithConflict(){
+        int id = registry.getMatches().iterator().next().getId();
+        controller.getMoveEffect(id, 1, 5, 2, 5, null).join();
+        controller.getMoveEffect(id, 6, 4, 4, 4, null).join();
+        controller.getMoveEffect(id, 1, 6, 3, 6, null).join();
+        controller.getMoveEffect(id, 7, 3, 3, 7, null).join();
+
+        assertEquals(HttpStatus.CONFLICT, statusOf(() -> controller.addPremove(id, Color.WHITE, 1, 4, 3, 4).join()));
+        assertEquals(HttpStatus.CONFLICT, statusOf(() -> controller.addPremove(id, Color.BLACK, 6, 3, 5, 3).join()));
+    }
+
+    @Test
+    public void squaresOffTheChessboardShouldBeRejectedWithBadRequest(){
+        int id = registry.getMatches().iterator().next().getId();
+
+        assertEquals(HttpStatus.BAD_REQUEST, statusOf(() -> controller.getMoveEffect(id, 1, 4, 8, 4, null)));
+        assertEquals(HttpStatus.BAD_REQUEST, statusOf(() -> controller.addPremove(id, Color.BLACK, -1, 3, 5, 3)));
+        assertEquals(HttpStatus.BAD_REQUEST, statusOf(() -> controller.getTargets(id, 0, 8)));
+    }
+
+    private static HttpStatus statusOf(Runnable request){
+        Throwable thrown = assertThrows(RuntimeException.class, request::run);
+        if (thrown instanceof CompletionException)
+            thrown = thrown.getCause();
+        return HttpStatus.valueOf(assertInstanceOf(ResponseStatusException.class, thrown).getStatusCode().value());
+    }
+}
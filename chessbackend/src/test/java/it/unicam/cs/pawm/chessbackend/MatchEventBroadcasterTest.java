@@ -0,0 +1,77 @@
+package it.unicam.cs.pawm.chessbackend;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Chessboard;
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Player;
+import it.unicam.cs.pawm.chessbackend.model.game.match.PlayerPair;
+import it.unicam.cs.pawm.chessbackend.service.MatchEventBroadcaster;
+import it.unicam.cs.pawm.chessbackend.service.MatchUpdate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchEventBroadcasterTest {
+    private Match match;
+
+    @BeforeEach
+    public void initializeMatch(){
+        match = new Match(0, 60000, new PlayerPair(
+            new Player(Color.WHITE, "ant", 600), new Player(Color.BLACK, "ben", 700)
+        ));
+        match.start();
+    }
+
+    @AfterEach
+    public void disposeMatch(){
+        match.getClock().dispose();
+    }
+
+    @Test
+    public void updateShouldDescribeAppliedMove(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        Move whitePawnMove = new Move(board.getSquareAt(1, 3), board.getSquareAt(3, 3));
+        match.onMove(whitePawnMove);
+
+        MatchUpdate update = MatchUpdate.ofEntry(match.getHistory().getEntriesSince(0).get(0));
+
+        assertEquals(1, update.getPly());
+        assertEquals(1, update.getOriginRow());
+        assertEquals(3, update.getTargetRow());
+        assertEquals("MOVE", update.getEffect());
+        assertNull(update.getEnding());
+        assertTrue(update.getWhiteTime() > 0);
+    }
+
+    @Test
+    public void completeShouldRemoveSubscribers(){
+        MatchEventBroadcaster broadcaster = new MatchEventBroadcaster();
+        broadcaster.subscribe(0);
+        broadcaster.subscribe(0);
+
+        assertEquals(2, broadcaster.getSubscriberCount(0));
+        assertEquals(0, broadcaster.getSubscriberCount(1));
+        broadcaster.publish(0, MatchUpdate.ofFlagFall(match));
+
+        broadcaster.complete(0);
+
+        assertEquals(0, broadcaster.getSubscriberCount(0));
+    }
+
+    @Test
+    public void publishShouldNotWaitForSlowSubscribers(){
+        MatchEventBroadcaster broadcaster = new MatchEventBroadcaster(task -> {});
+        broadcaster.subscribe(0);
+        MatchUpdate update = MatchUpdate.ofFlagFall(match);
+
+        for (int i = 0; i < MatchEventBroadcaster.MAX_PENDING; i++)
+            broadcaster.publish(0, update);
+        assertEquals(1, broadcaster.getSubscriberCount(0));
+
+        broadcaster.publish(0, update);
+        assertEquals(0, broadcaster.getSubscriberCount(0));
+    }
+}
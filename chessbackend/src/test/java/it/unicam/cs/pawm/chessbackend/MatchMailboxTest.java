@@ -0,0 +1,126 @@
+package it.unicam.cs.pawm.chessbackend;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Chessboard;
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEffect;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Player;
+import it.unicam.cs.pawm.chessbackend.model.game.match.PlayerPair;
+import it.unicam.cs.pawm.chessbackend.service.MatchMailbox;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchMailboxTest {
+    private ExecutorService executor;
+    private Match match;
+    private MatchMailbox mailbox;
+
+    @BeforeEach
+    public void initializeMailbox(){
+        executor = Executors.newFixedThreadPool(4);
+        match = new Match(0, 60000, new PlayerPair(
+            new Player(Color.WHITE, "ant", 600), new Player(Color.BLACK, "ben", 700)
+        ));
+        match.start();
+        mailbox = new MatchMailbox(match, executor);
+    }
+
+    @AfterEach
+    public void disposeMailbox(){
+        match.getClock().dispose();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldRunOperationsInSubmissionOrder() throws Exception {
+        List<Integer> executed = new ArrayList<>();
+        List<CompletableFuture<Integer>> results = IntStream.range(0, 1000)
+            .mapToObj(i -> mailbox.submit(m -> {
+                executed.add(i);
+                return i;
+            }))
+            .toList();
+
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(IntStream.range(0, 1000).boxed().toList(), executed);
+    }
+
+    @Test
+    public void shouldNotRunOperationsConcurrently() throws Exception {
+        int[] counter = {0};
+        List<CompletableFuture<Integer>> results = IntStream.range(0, 1000).parallel()
+            .mapToObj(i -> mailbox.submit(m -> ++counter[0]))
+            .toList();
+
+        CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1000, counter[0]);
+    }
+
+    @Test
+    public void shouldCompleteWithMoveEffect() throws Exception {
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        Move whitePawnMove = new Move(board.getSquareAt(1, 3), board.getSquareAt(3, 3));
+
+        CompletableFuture<MoveEffect> effect = mailbox.submit(m -> {
+            m.onMove(whitePawnMove);
+            return m.getLastMoveEffect();
+        });
+
+        assertEquals(MoveEffect.MOVE, effect.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyOnIllegalOperation(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        Move blackPawnMove = new Move(board.getSquareAt(6, 3), board.getSquareAt(5, 3));
+
+        CompletableFuture<Void> result = mailbox.submit(m -> {
+            m.onMove(blackPawnMove);
+            return null;
+        });
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyOnErrorAndKeepRunning() throws Exception {
+        CompletableFuture<Void> failed = mailbox.submit(m -> {
+            throw new AssertionError("broken operation");
+        });
+        CompletableFuture<Integer> next = mailbox.submit(Match::getId);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> failed.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, exception.getCause());
+        assertEquals(0, next.get(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldFailOperationsRejectedByExecutorAndScheduleAgain() throws Exception {
+        AtomicBoolean reject = new AtomicBoolean(true);
+        MatchMailbox rejecting = new MatchMailbox(match, task -> {
+            if (reject.getAndSet(false))
+                throw new RejectedExecutionException("busy");
+            task.run();
+        });
+
+        CompletableFuture<Integer> rejected = rejecting.submit(Match::getId);
+        CompletableFuture<Integer> accepted = rejecting.submit(Match::getId);
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> rejected.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        assertEquals(0, accepted.get(10, TimeUnit.SECONDS));
+    }
+}
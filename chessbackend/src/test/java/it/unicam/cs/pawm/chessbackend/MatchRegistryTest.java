@@ -0,0 +1,73 @@
+package it.unicam.cs.pawm.chessbackend;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Player;
+import it.unicam.cs.pawm.chessbackend.model.game.match.TimeControl;
+import it.unicam.cs.pawm.chessbackend.model.game.match.WaitingRoom;
+import it.unicam.cs.pawm.chessbackend.model.game.matchbuilder.StandardMatchBuilder;
+import it.unicam.cs.pawm.chessbackend.service.MatchRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchRegistryTest {
+    private MatchRegistry registry;
+
+    @BeforeEach
+    public void initializeRegistry(){
+        registry = new MatchRegistry(new StandardMatchBuilder());
+    }
+
+    private WaitingRoom roomFor(String white, String black){
+        WaitingRoom room = new WaitingRoom();
+        room.addPlayer(new Player(Color.WHITE, white, 600));
+        room.addPlayer(new Player(Color.BLACK, black, 600));
+        return room;
+    }
+
+    @Test
+    public void shouldFindCreatedMatch(){
+        Match match = registry.create(roomFor("ant", "ben"));
+
+        assertEquals(match, registry.find(match.getId()).orElseThrow());
+        assertTrue(registry.find(match.getId() + 1).isEmpty());
+    }
+
+    @Test
+    public void shouldCreateMatchWithTimeControl(){
+        Match match = registry.create(roomFor("ant", "ben"), new TimeControl(5000, 2000, 0));
+
+        assertEquals(match, registry.find(match.getId()).orElseThrow());
+        assertEquals(5000, match.getClock().getRemainingTime(match.getPlayers().getWhitePlayer()));
+        assertEquals(5000, match.getClock().getRemainingTime(match.getPlayers().getBlackPlayer()));
+        match.getClock().dispose();
+    }
+
+    @Test
+    public void shouldNotRegisterTwoMatchesWithSameId(){
+        Match match = registry.create(roomFor("ant", "ben"));
+
+        assertThrows(IllegalArgumentException.class, () -> registry.register(match));
+    }
+
+    @Test
+    public void shouldCreateAndRemoveMatchesInParallel(){
+        List<Integer> ids = IntStream.range(0, 200).parallel()
+            .mapToObj(i -> registry.create(roomFor("white" + i, "black" + i)).getId())
+            .toList();
+
+        assertEquals(200, registry.size());
+        assertEquals(200, ids.stream().distinct().count());
+        assertTrue(ids.parallelStream().allMatch(id -> registry.find(id).isPresent()));
+
+        ids.parallelStream().forEach(id -> assertTrue(registry.remove(id).isPresent()));
+
+        assertEquals(0, registry.size());
+        assertTrue(registry.remove(ids.get(0)).isEmpty());
+    }
+}
@@ -3,10 +3,18 @@ package it.unicam.cs.pawm.chessbackend;
 import it.unicam.cs.pawm.chessbackend.model.game.Chessboard;
 import it.unicam.cs.pawm.chessbackend.model.game.Color;
 import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEffect;
+import it.unicam.cs.pawm.chessbackend.model.game.PieceType;
 import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
 import it.unicam.cs.pawm.chessbackend.model.game.match.MatchEndingResult;
+import it.unicam.cs.pawm.chessbackend.model.game.match.MatchHistory;
+import it.unicam.cs.pawm.chessbackend.model.game.match.MatchSnapshot;
 import it.unicam.cs.pawm.chessbackend.model.game.match.Player;
 import it.unicam.cs.pawm.chessbackend.model.game.match.PlayerPair;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Premove;
+import it.unicam.cs.pawm.chessbackend.model.game.match.TimeControl;
+import it.unicam.cs.pawm.chessbackend.service.HistoryDelta;
+import it.unicam.cs.pawm.chessbackend.service.MatchUpdate;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -129,5 +137,237 @@ public class MatchTest {
         assertEquals(MatchEndingResult.CHECKMATE_END, match.getEnding().get());
     }
 
+    @Test
+    public void clockShouldReportTurnsAfterCheckmate(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.start();
+
+        match.onMove(new Move(board.getSquareAt(1, 5), board.getSquareAt(2, 5)));
+        match.onMove(new Move(board.getSquareAt(6, 4), board.getSquareAt(4, 4)));
+        match.onMove(new Move(board.getSquareAt(1, 6), board.getSquareAt(3, 6)));
+        match.onMove(new Move(board.getSquareAt(7, 3), board.getSquareAt(3, 7)));
+
+        assertTrue(match.isEnded());
+        assertEquals(Color.WHITE, match.getClock().getCurrentlyPlaying().getTeam());
+        assertEquals(Color.BLACK, match.getClock().getCurrentlyWaiting().getTeam());
+    }
+
+    @Test
+    public void switchTurnShouldStartTheTimerOfTheOpponent(){
+        match.start();
+
+        match.switchTurn();
+
+        assertEquals(Color.BLACK, match.getClock().getCurrentlyPlaying().getTeam());
+        assertFalse(match.getClock().getPlayerTimers().get(match.getBlackPlayer()).isPaused());
+        assertTrue(match.getClock().getPlayerTimers().get(match.getWhitePlayer()).isPaused());
+    }
+
+    @Test
+    public void historyShouldReturnMovesSincePly(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        Move whitePawnMove = new Move(
+            board.getSquareAt(1, 3), board.getSquareAt(3, 3)
+        );
+        Move blackPawnMove = new Move(
+            board.getSquareAt(6, 4), board.getSquareAt(4, 4)
+        );
+        match.start();
+
+        match.onMove(whitePawnMove);
+        match.onMove(blackPawnMove);
+
+        HistoryDelta delta = HistoryDelta.since(match, 1);
+        assertEquals(2, delta.getPly());
+        assertEquals(1, delta.getMoves().size());
+        assertEquals(2, delta.getMoves().get(0).getPly());
+        assertEquals("e7e5", delta.getMoves().get(0).getMove());
+        assertEquals("MOVE", delta.getMoves().get(0).getEffect());
+        assertTrue(HistoryDelta.since(match, 2).getMoves().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> HistoryDelta.since(match, 3));
+    }
+
+    @Test
+    public void premovesShouldBeAppliedAfterOpponentMove(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        Move whitePawnMove = new Move(
+            board.getSquareAt(1, 3), board.getSquareAt(3, 3)
+        );
+        match.start();
+
+        match.addPremove(new Premove(Color.BLACK, board.getSquareAt(6, 4), board.getSquareAt(4, 4)));
+        match.addPremove(new Premove(Color.BLACK, board.getSquareAt(4, 4), board.getSquareAt(3, 3)));
+        match.onMove(whitePawnMove);
+
+        assertEquals(2, match.getHistory().size());
+        assertTrue(board.getSquareAt(4, 4).getPiece().isPresent());
+        assertEquals(1, match.getPremoves(Color.BLACK).size());
+        assertEquals(Color.WHITE, match.getClock().getCurrentlyPlaying().getTeam());
+
+        match.onMove(new Move(board.getSquareAt(0, 6), board.getSquareAt(2, 5)));
+
+        assertEquals(4, match.getHistory().size());
+        assertEquals(MoveEffect.CAPTURE, match.getLastMoveEffect());
+        assertEquals(Color.BLACK, board.getSquareAt(3, 3).getPiece().orElseThrow().getColor());
+        assertTrue(match.getPremoves(Color.BLACK).isEmpty());
+    }
+
+    @Test
+    public void premovesShouldNotRunTheClockOfThePremover() throws Exception {
+        Match timed = new Match(1, new TimeControl(60000, 1000, 0), new PlayerPair(
+            new Player(Color.WHITE, "carl", 600), new Player(Color.BLACK, "dan", 700)
+        ));
+        Chessboard board = timed.getMoveEvaluator().getCalculator().getChessboard();
+        timed.start();
+        timed.addPremove(new Premove(Color.BLACK, board.getSquareAt(6, 4), board.getSquareAt(4, 4)));
+        Thread.sleep(20);
+
+        timed.onMove(new Move(board.getSquareAt(1, 3), board.getSquareAt(3, 3)));
+
+        assertEquals(2, timed.getHistory().size());
+        assertEquals(Color.WHITE, timed.getClock().getCurrentlyPlaying().getTeam());
+        assertEquals(60000, timed.getClock().getRemainingTime(timed.getBlackPlayer()));
+        assertTrue(timed.getClock().getRemainingTime(timed.getWhitePlayer()) > 60000);
+        timed.getClock().dispose();
+    }
+
+    @Test
+    public void updatesShouldReportTheStateAfterTheirOwnMove(){
+        Match timed = new Match(1, new TimeControl(60000, 1000, 0), new PlayerPair(
+            new Player(Color.WHITE, "carl", 600), new Player(Color.BLACK, "dan", 700)
+        ));
+        Chessboard board = timed.getMoveEvaluator().getCalculator().getChessboard();
+        timed.start();
+        timed.onMove(new Move(board.getSquareAt(1, 5), board.getSquareAt(2, 5)));
+        timed.onMove(new Move(board.getSquareAt(6, 4), board.getSquareAt(4, 4)));
+        timed.addPremove(new Premove(Color.BLACK, board.getSquareAt(7, 3), board.getSquareAt(3, 7)));
+
+        timed.onMove(new Move(board.getSquareAt(1, 6), board.getSquareAt(3, 6)));
+
+        MatchUpdate move = MatchUpdate.ofEntry(timed.getHistory().getEntriesSince(2).get(0));
+        MatchUpdate premove = MatchUpdate.ofEntry(timed.getHistory().getEntriesSince(2).get(1));
+        assertNull(move.getEnding());
+        assertEquals(MatchEndingResult.CHECKMATE_END.name(), premove.getEnding());
+        assertEquals(move.getWhiteTime(), premove.getWhiteTime());
+        assertEquals(61000, premove.getBlackTime());
+        timed.getClock().dispose();
+    }
 
+    @Test
+    public void illegalPremoveShouldClearQueue(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        Move whitePawnMove = new Move(
+            board.getSquareAt(1, 3), board.getSquareAt(3, 3)
+        );
+        match.start();
+
+        match.addPremove(new Premove(Color.BLACK, board.getSquareAt(6, 4), board.getSquareAt(3, 4)));
+        match.addPremove(new Premove(Color.BLACK, board.getSquareAt(6, 3), board.getSquareAt(5, 3)));
+        match.onMove(whitePawnMove);
+
+        assertEquals(1, match.getHistory().size());
+        assertEquals(MoveEffect.MOVE, match.getLastMoveEffect());
+        assertTrue(match.getPremoves(Color.BLACK).isEmpty());
+        assertEquals(Color.BLACK, match.getClock().getCurrentlyPlaying().getTeam());
+    }
+
+    @Test
+    public void shouldNotPremoveDuringOwnTurn(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.start();
+
+        assertThrows(IllegalStateException.class, () -> match.addPremove(
+            new Premove(Color.WHITE, board.getSquareAt(1, 3), board.getSquareAt(3, 3))
+        ));
+    }
+
+    @Test
+    public void historyShouldDetectRepeatedPositions(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.start();
+
+        for (int i = 0; i < 2; i++) {
+            match.onMove(new Move(board.getSquareAt(0, 6), board.getSquareAt(2, 5)));
+            match.onMove(new Move(board.getSquareAt(7, 6), board.getSquareAt(5, 5)));
+            match.onMove(new Move(board.getSquareAt(2, 5), board.getSquareAt(0, 6)));
+            match.onMove(new Move(board.getSquareAt(5, 5), board.getSquareAt(7, 6)));
+        }
+
+        MatchHistory history = match.getHistory();
+        assertEquals(history.getKey(0), history.getKey(8));
+        assertEquals(history.getKey(1), history.getKey(5));
+        assertEquals(match.getKey(), history.getKey(8));
+        assertEquals(3, history.getOccurrences(match.getKey()));
+        assertNotEquals(history.getKey(0), history.getKey(2));
+    }
+
+    @Test
+    public void snapshotShouldNotChangeAfterMove(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.start();
+        MatchSnapshot before = match.getSnapshot();
+
+        match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4)));
+        MatchSnapshot after = match.getSnapshot();
+
+        assertNotSame(before, after);
+        assertEquals(0, before.getPly());
+        assertTrue(before.getPiece(12).isPresent());
+        assertTrue(before.getPiece(28).isEmpty());
+        assertEquals(Color.WHITE, before.getSideToMove());
+        assertEquals(1, after.getPly());
+        assertTrue(after.getPiece(12).isEmpty());
+        assertEquals(PieceType.PAWN, after.getPiece(28).orElseThrow().getPieceType());
+        assertEquals(Color.BLACK, after.getSideToMove());
+        assertEquals(match.getKey(), after.getKey());
+        assertEquals(1, after.getEntriesSince(0).size());
+    }
+
+    @Test
+    public void snapshotsShouldKeepTheirMovesWhileHistoryGrows(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.start();
+        match.onMove(new Move(board.getSquareAt(0, 6), board.getSquareAt(2, 5)));
+        MatchSnapshot first = match.getSnapshot();
+
+        for (int i = 0; i < 40; i++) {
+            match.onMove(new Move(board.getSquareAt(7, 6), board.getSquareAt(5, 5)));
+            match.onMove(new Move(board.getSquareAt(2, 5), board.getSquareAt(0, 6)));
+            match.onMove(new Move(board.getSquareAt(5, 5), board.getSquareAt(7, 6)));
+            match.onMove(new Move(board.getSquareAt(0, 6), board.getSquareAt(2, 5)));
+        }
+        MatchSnapshot last = match.getSnapshot();
+
+        assertEquals(1, first.getPly());
+        assertEquals(1, first.getEntriesSince(0).size());
+        assertThrows(IllegalArgumentException.class, () -> first.getEntriesSince(2));
+        assertEquals(161, last.getPly());
+        assertSame(first.getEntriesSince(0).get(0), last.getEntriesSince(0).get(0));
+        assertEquals(161, last.getEntriesSince(160).get(0).getPly());
+    }
+
+    @Test
+    public void appliedMovesShouldNotStayOnUndoStack(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.start();
+
+        match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4)));
+        match.onMove(new Move(board.getSquareAt(6, 3), board.getSquareAt(4, 3)));
+        match.onMove(new Move(board.getSquareAt(3, 4), board.getSquareAt(4, 3)));
+
+        assertEquals(3, match.getHistory().size());
+        assertEquals(0, board.getUndoDepth());
+        assertThrows(IllegalStateException.class, board::unmakeMove);
+    }
+
+    @Test
+    public void illegalMoveShouldNotPublishSnapshot(){
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        match.start();
+        MatchSnapshot before = match.getSnapshot();
+
+        match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(4, 4)));
+
+        assertSame(before, match.getSnapshot());
+    }
 }
@@ -0,0 +1,112 @@
+package it.unicam.cs.pawm.chessbackend;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Chessboard;
+import it.unicam.cs.pawm.chessbackend.model.game.Color;
+import it.unicam.cs.pawm.chessbackend.model.game.Move;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveEffect;
+import it.unicam.cs.pawm.chessbackend.model.game.PrecomputedMoves;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Match;
+import it.unicam.cs.pawm.chessbackend.model.game.match.Player;
+import it.unicam.cs.pawm.chessbackend.model.game.match.PlayerPair;
+import it.unicam.cs.pawm.chessbackend.service.LegalMovesCache;
+import it.unicam.cs.pawm.chessbackend.service.MoveSpeculator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoveSpeculatorTest {
+    private ExecutorService executor;
+    private Match match;
+    private MoveSpeculator speculator;
+
+    @BeforeEach
+    public void initializeSpeculator(){
+        executor = Executors.newSingleThreadExecutor();
+        match = new Match(0, 60000, new PlayerPair(
+            new Player(Color.WHITE, "ant", 600), new Player(Color.BLACK, "ben", 700)
+        ));
+        match.start();
+        speculator = new MoveSpeculator(executor);
+    }
+
+    @AfterEach
+    public void disposeSpeculator(){
+        match.getClock().dispose();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void precomputedMovesShouldBeTakenOnceReady() throws Exception {
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        speculator.speculate(match);
+        awaitExecutor();
+
+        Optional<PrecomputedMoves> precomputed = speculator.take(match);
+
+        assertTrue(precomputed.isPresent());
+        assertEquals(match.getKey(), precomputed.get().getKey());
+        assertEquals(20, precomputed.get().size());
+        assertEquals(MoveEffect.MOVE, match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4)),
+            new LegalMovesCache().evaluatorFor(match, precomputed)));
+        assertEquals(Color.BLACK, match.getSideToMove());
+        assertTrue(speculator.take(match).isEmpty());
+    }
+
+    @Test
+    public void speculatedPositionShouldBeValidatedWithoutSharedTable() throws Exception {
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        LegalMovesCache cache = new LegalMovesCache();
+        speculator.speculate(match);
+        awaitExecutor();
+        Optional<PrecomputedMoves> precomputed = speculator.take(match);
+
+        assertEquals(MoveEffect.ILLEGAL, match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(4, 4)),
+            cache.evaluatorFor(match, precomputed)));
+        assertEquals(MoveEffect.MOVE, match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4)),
+            cache.evaluatorFor(match, precomputed)));
+
+        assertEquals(0, cache.getStats().getMisses());
+        assertEquals(0, cache.getStats().getSize());
+        assertEquals(Color.BLACK, match.getSideToMove());
+    }
+
+    @Test
+    public void runningSpeculationShouldBeCancelled() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        executor.submit(() -> {
+            blocked.await();
+            return null;
+        });
+        speculator.speculate(match);
+
+        assertTrue(speculator.take(match).isEmpty());
+        blocked.countDown();
+        awaitExecutor();
+        assertTrue(speculator.take(match).isEmpty());
+    }
+
+    @Test
+    public void precomputedMovesOfAnotherPositionShouldBeIgnored() throws Exception {
+        Chessboard board = match.getMoveEvaluator().getCalculator().getChessboard();
+        speculator.speculate(match);
+        awaitExecutor();
+        PrecomputedMoves precomputed = speculator.take(match).orElseThrow();
+        match.onMove(new Move(board.getSquareAt(1, 4), board.getSquareAt(3, 4)));
+
+        assertEquals(MoveEffect.MOVE, match.onMove(new Move(board.getSquareAt(6, 4), board.getSquareAt(4, 4)),
+            new LegalMovesCache().evaluatorFor(match, Optional.of(precomputed))));
+        assertEquals(2, match.getHistory().size());
+    }
+
+    private void awaitExecutor() throws Exception {
+        executor.submit(() -> null).get(5, TimeUnit.SECONDS);
+    }
+}
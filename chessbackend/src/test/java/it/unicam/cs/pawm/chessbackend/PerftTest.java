@@ -0,0 +1,82 @@
+package it.unicam.cs.pawm.chessbackend;
+
+import it.unicam.cs.pawm.chessbackend.model.game.Fen;
+import it.unicam.cs.pawm.chessbackend.model.game.MoveBuffer;
+import it.unicam.cs.pawm.chessbackend.model.game.Perft;
+import it.unicam.cs.pawm.chessbackend.model.game.PerftResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PerftTest {
+    private static final String MOST_MOVES = "R6R/3Q4/1Q4Q1/4Q3/2Q4Q/Q4Q2/pp1Q4/kBNN1KB1 w - - 0 1";
+    private static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    @Test
+    public void startingPositionShouldHaveCorrectNodeCounts(){
+        Perft perft = new Perft(Fen.STARTING_POSITION);
+
+        assertEquals(20, perft.run(1).getNodes());
+        assertEquals(400, perft.run(2).getNodes());
+        assertEquals(8902, perft.run(3).getNodes());
+        assertEquals(197281, perft.run(4).getNodes());
+    }
+
+    @Test
+    public void endgamePositionShouldHaveCorrectNodeCounts(){
+        Perft perft = new Perft(ENDGAME);
+
+        assertEquals(14, perft.run(1).getNodes());
+        assertEquals(191, perft.run(2).getNodes());
+    }
+
+    @Test
+    public void divideShouldSumToNodes(){
+        PerftResult result = new Perft(Fen.STARTING_POSITION).run(3);
+
+        assertEquals(20, result.getDivide().size());
+        assertEquals(result.getNodes(), result.getDivide().values().stream().mapToLong(Long::longValue).sum());
+        assertEquals(600, result.getDivide().get("e2e4"));
+    }
+
+    @Test
+    public void parallelRunShouldMatchSequentialRun(){
+        Perft perft = new Perft(ENDGAME);
+        PerftResult sequential = perft.run(3);
+        PerftResult parallel = perft.runParallel(3, 4);
+
+        assertEquals(sequential.getNodes(), parallel.getNodes());
+        assertEquals(sequential.getDivide(), parallel.getDivide());
+    }
+
+    @Test
+    public void nodesPerSecondShouldNotOverflowOnDeepRuns(){
+        PerftResult result = new PerftResult(8, 84_998_978_956L, 100_000_000_000L, Map.of());
+
+        assertEquals(849_989_789, result.getNodesPerSecond());
+    }
+
+    @Test
+    public void negativeDepthShouldBeRejected(){
+        Perft perft = new Perft(Fen.STARTING_POSITION);
+
+        assertThrows(IllegalArgumentException.class, () -> perft.run(-1));
+        assertThrows(IllegalArgumentException.class, () -> perft.runParallel(-1, 2));
+    }
+
+    @Test
+    public void moveBufferShouldHoldThePositionWithMostMoves(){
+        assertEquals(218, new Perft(MOST_MOVES).run(1).getNodes());
+    }
+
+    @Test
+    public void fullMoveBufferShouldRejectMoves(){
+        MoveBuffer buffer = new MoveBuffer(1);
+        buffer.add(0);
+
+        assertThrows(IllegalStateException.class, () -> buffer.add(1));
+    }
+}
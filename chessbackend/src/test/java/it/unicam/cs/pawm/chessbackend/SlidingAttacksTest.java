@@ -0,0 +1,55 @@
+package it.unicam.cs.pawm.chessbackend;
+
+import it.unicam.cs.pawm.chessbackend.model.game.AttackTables;
+import it.unicam.cs.pawm.chessbackend.model.game.Bitboards;
+import it.unicam.cs.pawm.chessbackend.model.game.Direction;
+import it.unicam.cs.pawm.chessbackend.model.game.SlidingAttacks;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SlidingAttacksTest {
+    @Test
+    public void attacksShouldMatchRayWalks(){
+        Random random = new Random(42);
+
+        for (int i = 0; i < 2000; i++) {
+            long occupied = random.nextLong() & random.nextLong();
+            for (int square = 0; square < 64; square++) {
+                assertEquals(walk(square, occupied, false), SlidingAttacks.rook(square, occupied));
+                assertEquals(walk(square, occupied, true), SlidingAttacks.bishop(square, occupied));
+            }
+        }
+    }
+
+    @Test
+    public void emptyBoardAttacksShouldBeCorrect(){
+        assertEquals(14, Long.bitCount(SlidingAttacks.rook(Bitboards.square(0, 0), 0L)));
+        assertEquals(7, Long.bitCount(SlidingAttacks.bishop(Bitboards.square(0, 0), 0L)));
+        assertEquals(27, Long.bitCount(SlidingAttacks.queen(Bitboards.square(3, 3), 0L)));
+    }
+
+    @Test
+    public void betweenShouldContainOnlyAlignedSquares(){
+        assertEquals(6, Long.bitCount(AttackTables.between(Bitboards.square(0, 0), Bitboards.square(7, 7))));
+        assertEquals(2, Long.bitCount(AttackTables.between(Bitboards.square(0, 4), Bitboards.square(3, 4))));
+        assertEquals(0, AttackTables.between(Bitboards.square(0, 0), Bitboards.square(2, 1)));
+        assertEquals(0, AttackTables.between(Bitboards.square(0, 0), Bitboards.square(0, 1)));
+    }
+
+    private long walk(int square, long occupied, boolean diagonal){
+        long attacks = 0L;
+        for (Direction direction : Direction.values()) {
+            if (isDiagonal(direction) == diagonal)
+                attacks |= Bitboards.ray(square, direction, occupied);
+        }
+        return attacks;
+    }
+
+    private boolean isDiagonal(Direction direction){
+        return direction == Direction.UPLEFT || direction == Direction.UPRIGTH
+            || direction == Direction.DOWNLEFT || direction == Direction.DOWNRIGTH;
+    }
+}
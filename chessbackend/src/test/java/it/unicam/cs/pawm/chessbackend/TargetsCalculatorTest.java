@@ -5,6 +5,9 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TargetsCalculatorTest {
@@ -252,4 +255,104 @@ public class TargetsCalculatorTest {
         assertEquals(13, calculator.computePossibleTargets(rook).size());
         assertEquals(4, calculator.computePossibleTargets(king).size());
     }
+
+    @Test
+    public void squareShouldBeAttacked(){
+        Piece king = new Piece(1, PieceType.KING, Color.WHITE);
+        Piece rook = new Piece(2, PieceType.ROOK, Color.BLACK);
+        Piece knight = new Piece(3, PieceType.KNIGHT, Color.BLACK);
+        Piece pawn = new Piece(4, PieceType.PAWN, Color.WHITE);
+
+        chessboard.getSquareAt(0, 4).occupyWith(king);
+        chessboard.getSquareAt(7, 0).occupyWith(rook);
+        chessboard.getSquareAt(3, 3).occupyWith(knight);
+        chessboard.getSquareAt(3, 0).occupyWith(pawn);
+
+        assertTrue(calculator.isAttacked(chessboard.getSquareAt(5, 0), Color.BLACK));
+        assertFalse(calculator.isAttacked(chessboard.getSquareAt(2, 0), Color.BLACK));
+        assertTrue(calculator.isAttacked(chessboard.getSquareAt(1, 4), Color.BLACK));
+        assertTrue(calculator.isAttacked(chessboard.getSquareAt(4, 1), Color.WHITE));
+        assertFalse(calculator.isAttacked(chessboard.getSquareAt(4, 0), Color.WHITE));
+        assertTrue(calculator.isAttacked(chessboard.getSquareAt(1, 3), Color.WHITE));
+    }
+
+    @Test
+    public void pinnedPieceShouldMoveAlongPinRay(){
+        Piece king = new Piece(1, PieceType.KING, Color.WHITE);
+        Piece rook = new Piece(2, PieceType.ROOK, Color.WHITE);
+        Piece bishop = new Piece(3, PieceType.BISHOP, Color.WHITE);
+        Piece blackRook = new Piece(4, PieceType.ROOK, Color.BLACK);
+        Piece blackQueen = new Piece(5, PieceType.QUEEN, Color.BLACK);
+
+        chessboard.getSquareAt(0, 4).occupyWith(king);
+        chessboard.getSquareAt(2, 4).occupyWith(rook);
+        chessboard.getSquareAt(7, 4).occupyWith(blackRook);
+        chessboard.getSquareAt(1, 3).occupyWith(bishop);
+        chessboard.getSquareAt(4, 0).occupyWith(blackQueen);
+
+        assertTrue(calculator.isPinned(rook));
+        assertTrue(calculator.isPinned(bishop));
+        assertEquals(6, calculator.computePossibleTargets(rook).size());
+        assertTrue(calculator.computePossibleTargets(rook).contains(chessboard.getSquareAt(7, 4)));
+        assertEquals(3, calculator.computePossibleTargets(bishop).size());
+        assertEquals(Set.of(bishop), calculator.getPinnedPiecesBy(blackQueen));
+        assertEquals(Set.of(rook), calculator.getPinnedPiecesBy(blackRook));
+    }
+
+    @Test
+    public void shouldGeneratePackedLegalMoves(){
+        chessboard.initializeBoard(PieceFactory.getSet(Color.WHITE), PieceFactory.getSet(Color.BLACK));
+        MoveBuffer moves = new MoveBuffer();
+
+        assertEquals(20, calculator.generateLegalMoves(Color.WHITE, moves));
+        assertEquals(20, calculator.generateLegalMoves(Color.BLACK, moves));
+
+        int doublePushes = 0;
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < moves.size(); i++) {
+            if (PackedMove.isDoublePush(moves.get(i)))
+                doublePushes++;
+            assertFalse(PackedMove.isCapture(moves.get(i)));
+            names.add(Bitboards.name(PackedMove.getOrigin(moves.get(i))) + Bitboards.name(PackedMove.getTarget(moves.get(i))));
+        }
+        assertEquals(8, doublePushes);
+        assertTrue(names.contains("e7e5"));
+        assertFalse(names.contains("d8d6"));
+
+        Piece knight = chessboard.getSquareAt(0, 1).getPiece().orElseThrow();
+        assertEquals(2, calculator.generateLegalMoves(knight, moves));
+        assertEquals(calculator.computePossibleTargets(knight).size(), moves.size());
+    }
+
+    @Test
+    public void startingPositionShouldHaveLegalMoves(){
+        Fen.load(Fen.STARTING_POSITION, chessboard);
+
+        assertTrue(calculator.hasAnyLegalMove(Color.WHITE));
+        assertTrue(calculator.hasAnyLegalMove(Color.BLACK));
+    }
+
+    @Test
+    public void checkmatedKingShouldHaveNoLegalMoves(){
+        Fen.load("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1", chessboard);
+
+        assertFalse(calculator.hasAnyLegalMove(Color.BLACK));
+        assertTrue(calculator.isCheck(Color.BLACK));
+    }
+
+    @Test
+    public void stalematedKingShouldHaveNoLegalMoves(){
+        Fen.load("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1", chessboard);
+
+        assertFalse(calculator.hasAnyLegalMove(Color.BLACK));
+        assertFalse(calculator.isCheck(Color.BLACK));
+    }
+
+    @Test
+    public void onlyKingShouldAnswerDoubleCheck(){
+        Fen.load("4k3/8/8/8/8/1n1Q4/PP6/K6r w - - 0 1", chessboard);
+
+        assertEquals(2, calculator.getCheckingPieces(chessboard.getSquareAt(0, 0).getPiece().orElseThrow()).size());
+        assertFalse(calculator.hasAnyLegalMove(Color.WHITE));
+    }
 }
@@ -1,8 +1,15 @@
 package it.unicam.cs.pawm.chessbackend;
 
+import it.unicam.cs.pawm.chessbackend.model.game.match.ClockPrecision;
 import it.unicam.cs.pawm.chessbackend.model.game.match.SimpleTimer;
+import it.unicam.cs.pawm.chessbackend.model.game.match.TimeControl;
+import it.unicam.cs.pawm.chessbackend.model.game.match.TimerWheel;
 import org.junit.jupiter.api.Test;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class TimerTest {
@@ -38,4 +45,137 @@ public class TimerTest {
         assertEquals(0, simpleTimer.getTimeLeft());
         assertThrows(IllegalStateException.class, simpleTimer::start);
     }
+
+    @Test
+    public void timerShouldNotifyFlagFall() throws InterruptedException {
+        SimpleTimer simpleTimer = new SimpleTimer(1000);
+        CountDownLatch flagFall = new CountDownLatch(1);
+        simpleTimer.onExpiration(flagFall::countDown);
+
+        simpleTimer.start();
+
+        assertTrue(flagFall.await(5, TimeUnit.SECONDS));
+        assertTrue(simpleTimer.isDone());
+    }
+
+    @Test
+    public void readingExpiredTimerShouldNotifyFlagFallOnce() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(10, TimeUnit.SECONDS, 8);
+        SimpleTimer simpleTimer = new SimpleTimer(TimeControl.of(100), ClockPrecision.MILLISECONDS, wheel);
+        AtomicInteger flagFalls = new AtomicInteger();
+        simpleTimer.onExpiration(flagFalls::incrementAndGet);
+
+        simpleTimer.start();
+        simpleTimer.checkFlagFall();
+        assertEquals(0, flagFalls.get());
+
+        Thread.sleep(150);
+        simpleTimer.checkFlagFall();
+        simpleTimer.checkFlagFall();
+
+        assertEquals(1, flagFalls.get());
+        assertTrue(simpleTimer.isDone());
+    }
+
+    @Test
+    public void pausedTimerShouldNotFlagFall() throws InterruptedException {
+        SimpleTimer simpleTimer = new SimpleTimer(500);
+        CountDownLatch flagFall = new CountDownLatch(1);
+        simpleTimer.onExpiration(flagFall::countDown);
+
+        simpleTimer.start();
+        simpleTimer.pause();
+
+        assertFalse(flagFall.await(1, TimeUnit.SECONDS));
+        assertEquals(500, simpleTimer.getTimeLeft());
+    }
+
+    @Test
+    public void wheelShouldRunOnlyTasksNotCancelled() throws InterruptedException {
+        TimerWheel wheel = TimerWheel.shared();
+        AtomicInteger expired = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(500);
+
+        for (int i = 0; i < 1000; i++) {
+            TimerWheel.Timeout timeout = wheel.schedule(() -> {
+                expired.incrementAndGet();
+                done.countDown();
+            }, 200 + i, TimeUnit.MILLISECONDS);
+            if (i % 2 == 1)
+                timeout.cancel();
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        Thread.sleep(300);
+        assertEquals(500, expired.get());
+    }
+
+    @Test
+    public void wheelShouldBeLateByLessThanATick() throws InterruptedException {
+        TimerWheel wheel = new TimerWheel(200, TimeUnit.MILLISECONDS, 8);
+        long[] delays = {10, 210, 390, 610};
+        long[] lateness = new long[delays.length];
+        CountDownLatch done = new CountDownLatch(delays.length);
+
+        for (int i = 0; i < delays.length; i++) {
+            int index = i;
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delays[i]);
+            wheel.schedule(() -> {
+                lateness[index] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - deadline);
+                done.countDown();
+            }, delays[i], TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        for (long late : lateness) {
+            assertTrue(late >= 0);
+            assertTrue(late < 200 + 50, "late by " + late + " ms");
+        }
+    }
+
+    @Test
+    public void millisecondTimerShouldChargeElapsedTime() throws InterruptedException {
+        SimpleTimer simpleTimer = new SimpleTimer(TimeControl.of(10000), ClockPrecision.MILLISECONDS);
+
+        simpleTimer.start();
+        Thread.sleep(300);
+        simpleTimer.pause();
+
+        long timeLeft = simpleTimer.getTimeLeft();
+        assertTrue(timeLeft <= 9700 && timeLeft > 9000, "Unexpected time left: " + timeLeft);
+        Thread.sleep(100);
+        assertEquals(timeLeft, simpleTimer.getTimeLeft());
+    }
+
+    @Test
+    public void timerShouldAddIncrementAfterTurn() throws InterruptedException {
+        SimpleTimer simpleTimer = new SimpleTimer(new TimeControl(10000, 2000, 0), ClockPrecision.MILLISECONDS);
+
+        simpleTimer.start();
+        Thread.sleep(100);
+        simpleTimer.pause();
+
+        long timeLeft = simpleTimer.getTimeLeft();
+        assertTrue(timeLeft <= 11900 && timeLeft > 11000, "Unexpected time left: " + timeLeft);
+    }
+
+    @Test
+    public void timerShouldNotChargeDelay() throws InterruptedException {
+        SimpleTimer simpleTimer = new SimpleTimer(new TimeControl(10000, 0, 1000), ClockPrecision.MILLISECONDS);
+
+        simpleTimer.start();
+        Thread.sleep(300);
+
+        assertEquals(10000, simpleTimer.getTimeLeft());
+        simpleTimer.pause();
+        assertEquals(10000, simpleTimer.getTimeLeft());
+    }
+
+    @Test
+    public void timeControlShouldRequirePositiveBaseTime(){
+        assertThrows(IllegalArgumentException.class, () -> new TimeControl(0, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimeControl(-1000, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new TimeControl(1000, -1, 0));
+        assertEquals(1000, TimeControl.of(1000).getBaseTime());
+    }
 }
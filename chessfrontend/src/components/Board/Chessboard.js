@@ -4,21 +4,118 @@ import Tile from "./Tile";
 import Files from "./Files";
 import Ranks from "./Ranks";
 
+const SERVER = "http://localhost:8080/match";
+
+// Converts a square in algebraic notation (e.g. "e2") to its row and column.
+const squareOf = (name) => ({
+  row: Number(name[1]) - 1,
+  column: name.charCodeAt(0) - 97,
+});
+
+const movePiece = (board, origin, target) => {
+  const from = board.find(
+    (elem) => elem.row === origin.row && elem.column === origin.column
+  );
+  if (from === undefined || from.piece === null) return board;
+  return board.map((elem) => {
+    if (elem === from) return { ...elem, piece: null, empty: true };
+    if (elem.row === target.row && elem.column === target.column)
+      return { ...elem, piece: from.piece, empty: false };
+    return elem;
+  });
+};
+
 export default function Chessboard() {
   const [board, setBoard] = useState([]);
   let tiles = [];
 
+  // The updates are received from the moment the board is requested: until the board and its ply
+  // are known they are buffered, then every update is applied only if it follows the last known
+  // ply. A gap in the plies, or a reconnection of the event source, resynchronizes the board with
+  // the moves made since the last known ply, or with the whole board if the server no longer
+  // knows that ply.
   useEffect(() => {
-    fetch("http://localhost:8080/match")
-      .then((res) => res.json())
-      .then((data) =>
-        data.forEach((a) =>
-          a.forEach((elem) => setBoard((board) => [...board, elem]))
-        )
-      )
-      .catch((err) => {
-        console.log(err.message);
-      });
+    let ply = null;
+    let syncing = true;
+    let pending = [];
+    let closed = false;
+
+    const flush = () => {
+      syncing = false;
+      const buffered = pending;
+      pending = [];
+      buffered.forEach(receive);
+    };
+
+    const load = () => {
+      syncing = true;
+      fetch(SERVER)
+        .then((res) => {
+          const boardPly = Number(res.headers.get("X-Ply"));
+          return res.json().then((data) => {
+            if (closed) return;
+            setBoard(data.flat());
+            ply = boardPly;
+            flush();
+          });
+        })
+        .catch((err) => {
+          console.log(err.message);
+        });
+    };
+
+    const resync = () => {
+      syncing = true;
+      fetch(`${SERVER}/history?since=${ply}`)
+        .then((res) => {
+          if (!res.ok) throw new Error("Unknown ply " + ply);
+          return res.json();
+        })
+        .then((delta) => {
+          if (closed) return;
+          delta.moves
+            .filter((record) => record.ply > ply)
+            .forEach((record) => {
+              const origin = squareOf(record.move.substring(0, 2));
+              const target = squareOf(record.move.substring(2, 4));
+              setBoard((board) => movePiece(board, origin, target));
+            });
+          ply = Math.max(ply, delta.ply);
+          flush();
+        })
+        .catch(() => {
+          if (!closed) load();
+        });
+    };
+
+    const receive = (update) => {
+      if (syncing) {
+        pending.push(update);
+        return;
+      }
+      if (update.ply <= ply) return;
+      if (update.originRow === null || update.ply !== ply + 1) {
+        pending.push(update);
+        resync();
+        return;
+      }
+      const origin = { row: update.originRow, column: update.originColumn };
+      const target = { row: update.targetRow, column: update.targetColumn };
+      setBoard((board) => movePiece(board, origin, target));
+      ply = update.ply;
+    };
+
+    const events = new EventSource(`${SERVER}/events`);
+    events.onmessage = (e) => receive(JSON.parse(e.data));
+    events.onopen = () => {
+      if (!syncing) resync();
+    };
+    load();
+
+    return () => {
+      closed = true;
+      events.close();
+    };
   }, []);
 
   let rows = Array.from({ length: 8 }, (x, i) => 8 - i);
@@ -26,7 +123,6 @@ export default function Chessboard() {
     String.fromCharCode(i + 97)
   );
 
-  console.log(board);
   board.map(
     (elem) =>
       (tiles[56 - elem.row * 8 + elem.column] = (
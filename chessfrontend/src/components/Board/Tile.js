@@ -1,23 +1,27 @@
 import React from "react";
 import "./Tile.css";
 import Piece from "../Pieces/Piece";
-import { useState } from "react";
+import { useEffect, useState } from "react";
 
 export default function Tile(props) {
-  let initialPiece = null;
-  if (props.piece !== null) {
-    initialPiece = (
+  const renderPiece = (piece) =>
+    piece === null ? null : (
       <Piece
-        type={props.piece.pieceType}
-        color={props.piece.color}
-        id={props.piece.id}
+        type={piece.pieceType}
+        color={piece.color}
+        id={piece.id}
         currentRow={props.row}
         currentColumn={props.column}
       />
     );
-  }
 
-  const [piece, setPiece] = useState(initialPiece);
+  const [piece, setPiece] = useState(renderPiece(props.piece));
+
+  // The board pushed by the server is the source of truth: keep the tile in sync with it.
+  useEffect(() => {
+    setPiece(renderPiece(props.piece));
+    // eslint-disable-next-line react-hooks/exhaustive-deps
+  }, [props.piece]);
 
   const getTileColor = (i, j) => {
     return (i + j) % 2 === 0 ? "tile-dark" : "tile-light";